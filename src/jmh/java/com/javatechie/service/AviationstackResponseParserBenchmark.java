@@ -0,0 +1,61 @@
+package com.javatechie.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing one 100-item {@code /flights} page, and the departure time parsing on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AviationstackResponseParserBenchmark {
+
+	private final AviationstackResponseParser parser = new AviationstackResponseParser();
+	private byte[] page;
+	private String[] dateTimes;
+
+	@Setup
+	public void load() {
+		page = Fixtures.flightsPage();
+		List<String> found = new ArrayList<>();
+		Matcher matcher = Pattern.compile("\"(?:scheduled|estimated)\":\"([^\"]+)\"")
+				.matcher(new String(page, StandardCharsets.UTF_8));
+		while (matcher.find()) {
+			found.add(matcher.group(1));
+		}
+		dateTimes = found.toArray(new String[0]);
+	}
+
+	@Benchmark
+	public AviationstackResponseParser.Page parsePage() throws IOException {
+		return parser.parse(page);
+	}
+
+	@Benchmark
+	public void parseDateTimes(Blackhole blackhole) {
+		for (String dateTime : dateTimes) {
+			blackhole.consume(parser.parseDateTime(dateTime));
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package com.javatechie.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * aviationstack responses under {@code src/jmh/resources/fixtures}, in the API's {@code /flights} layout.
+ */
+final class Fixtures {
+
+	private Fixtures() {
+	}
+
+	/**
+	 * One full {@code /flights} page of 100 items, including the nested fields the parser skips.
+	 */
+	static byte[] flightsPage() {
+		return read("/fixtures/flights-page.json");
+	}
+
+	private static byte[] read(String path) {
+		try (InputStream in = Fixtures.class.getResourceAsStream(path)) {
+			if (in == null) {
+				throw new IllegalStateException("Missing fixture " + path);
+			}
+			return in.readAllBytes();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.javatechie.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.javatechie.model.Flight;
+import com.javatechie.model.FlightObservation;
+
+/**
+ * Per-item work after parsing, over the observations of the fixture page: mapping an
+ * observation onto the stored flight, deciding whether the change is worth a notification, and
+ * rendering the change email. Every other stored flight differs from its observation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlightChangeBenchmark {
+
+	private final NotificationTemplates notificationTemplates = new NotificationTemplates();
+	private FlightObservation[] observations;
+	private Flight[] stored;
+	private Flight[] current;
+
+	@Setup
+	public void load() throws IOException {
+		List<FlightObservation> items = new ArrayList<>();
+		for (FlightObservation item : new AviationstackResponseParser().parse(Fixtures.flightsPage()).data()) {
+			if (item.scheduledTime() != null) {
+				items.add(item);
+			}
+		}
+		observations = items.toArray(new FlightObservation[0]);
+		stored = new Flight[observations.length];
+		current = new Flight[observations.length];
+		for (int i = 0; i < observations.length; i++) {
+			FlightObservation item = observations[i];
+			boolean changed = i % 2 == 0;
+			stored[i] = Flight.builder()
+					.id((long) i + 1)
+					.flightNumber(item.flightIata())
+					.scheduledTime(item.scheduledTime())
+					.estimatedTime(item.estimatedTime())
+					.gate(changed || item.gate() == null ? "A1" : item.gate())
+					.terminal(item.terminal() == null ? "1" : item.terminal())
+					.delay(changed ? 0L : item.delay() == null ? 0L : item.delay())
+					.build();
+			current[i] = FlightService.extractFlightData(item, stored[i]);
+		}
+	}
+
+	@Benchmark
+	public void extractFlightData(Blackhole blackhole) {
+		for (int i = 0; i < observations.length; i++) {
+			blackhole.consume(FlightService.extractFlightData(observations[i], stored[i]));
+		}
+	}
+
+	@Benchmark
+	public void hasSignificantChanges(Blackhole blackhole) {
+		for (int i = 0; i < stored.length; i++) {
+			blackhole.consume(FlightService.hasSignificantChanges(stored[i], current[i]));
+		}
+	}
+
+	@Benchmark
+	public void changeMessage(Blackhole blackhole) {
+		for (int i = 0; i < stored.length; i++) {
+			blackhole.consume(notificationTemplates.change(stored[i], current[i]));
+		}
+	}
+}
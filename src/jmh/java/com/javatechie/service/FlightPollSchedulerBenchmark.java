@@ -0,0 +1,77 @@
+package com.javatechie.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.javatechie.model.Flight;
+
+/**
+ * One simulated hour of 30 second polling ticks (takeDue plus reschedule) over a scheduler
+ * tracking flights that depart across the next two days. Each iteration starts from a fresh
+ * scheduler whose initial all-due tick has already been drained.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = FlightPollSchedulerBenchmark.TICKS_PER_HOUR)
+@Measurement(iterations = 5, batchSize = FlightPollSchedulerBenchmark.TICKS_PER_HOUR)
+@Fork(1)
+public class FlightPollSchedulerBenchmark {
+
+	static final int TICKS_PER_HOUR = 120;
+
+	private static final LocalDateTime START = LocalDateTime.of(2024, 7, 30, 0, 0);
+
+	@Param({"10000", "100000", "1000000"})
+	private int flights;
+
+	private FlightPollScheduler scheduler;
+	private LocalDateTime now;
+
+	@Setup(Level.Iteration)
+	public void track() {
+		scheduler = new FlightPollScheduler();
+		ReflectionTestUtils.setField(scheduler, "minIntervalSeconds", 60L);
+		ReflectionTestUtils.setField(scheduler, "maxIntervalSeconds", 3600L);
+		ReflectionTestUtils.setField(scheduler, "proximityDivisor", 12L);
+		ReflectionTestUtils.setField(scheduler, "maxBackoffSteps", 3);
+		long window = 2 * 24 * 3600;
+		for (long id = 1; id <= flights; id++) {
+			scheduler.track(Flight.builder()
+					.id(id)
+					.scheduledTime(START.plusSeconds(60 + id * 7919 % window))
+					.build(), START, id % 5);
+		}
+		now = START;
+		reschedule(scheduler.takeDue(now));
+	}
+
+	@Benchmark
+	public int tick() {
+		now = now.plusSeconds(30);
+		List<Long> due = scheduler.takeDue(now);
+		reschedule(due);
+		return due.size();
+	}
+
+	private void reschedule(List<Long> due) {
+		for (Long flightId : due) {
+			scheduler.reschedule(flightId, flightId % 10 == 0 ? PollOutcome.CHANGED : PollOutcome.UNCHANGED, now);
+		}
+	}
+}
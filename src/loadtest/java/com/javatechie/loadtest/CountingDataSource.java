@@ -0,0 +1,53 @@
+package com.javatechie.loadtest;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Counts statements prepared or created on the application's connections. A JDBC batch counts
+ * once, so the total approximates database round trips.
+ */
+final class CountingDataSource extends DelegatingDataSource {
+
+	private final LongAdder statements = new LongAdder();
+
+	CountingDataSource(DataSource target) {
+		super(target);
+	}
+
+	long getStatements() {
+		return statements.sum();
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return counting(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return counting(super.getConnection(username, password));
+	}
+
+	private Connection counting(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+				(proxy, method, args) -> {
+					String name = method.getName();
+					if (name.startsWith("prepare") || name.equals("createStatement")) {
+						statements.increment();
+					}
+					try {
+						return method.invoke(connection, args);
+					} catch (InvocationTargetException e) {
+						throw e.getTargetException();
+					}
+				});
+	}
+}
@@ -0,0 +1,194 @@
+package com.javatechie.loadtest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves aviationstack {@code /v1/flights} lookups by {@code flight_iata} or paged by
+ * {@code dep_iata} from an in-memory flight table, with a fixed latency, a share of 503
+ * responses, and a chance per returned item that its gate or delay has moved.
+ */
+final class FakeAviationstackServer implements Closeable {
+
+	static final class FakeFlight {
+		final String flightNumber;
+		final String airport;
+		final LocalDateTime scheduledTime;
+		volatile String gate;
+		volatile String terminal;
+		volatile long delay;
+
+		FakeFlight(String flightNumber, String airport, LocalDateTime scheduledTime, String gate, String terminal, long delay) {
+			this.flightNumber = flightNumber;
+			this.airport = airport;
+			this.scheduledTime = scheduledTime;
+			this.gate = gate;
+			this.terminal = terminal;
+			this.delay = delay;
+		}
+	}
+
+	private final long latencyMillis;
+	private final double errorRate;
+	private final double churnRate;
+	private final Map<String, FakeFlight> byNumber = new ConcurrentHashMap<>();
+	private final Map<String, List<FakeFlight>> byAirport = new ConcurrentHashMap<>();
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final HttpServer server;
+	private final ExecutorService workers;
+
+	FakeAviationstackServer(long latencyMillis, double errorRate, double churnRate) throws IOException {
+		this.latencyMillis = latencyMillis;
+		this.errorRate = errorRate;
+		this.churnRate = churnRate;
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 512);
+		workers = Executors.newFixedThreadPool(64);
+		server.setExecutor(workers);
+		server.createContext("/v1/flights", this::handle);
+		server.start();
+	}
+
+	void add(FakeFlight flight) {
+		byNumber.put(flight.flightNumber, flight);
+		if (flight.airport != null) {
+			byAirport.computeIfAbsent(flight.airport, k -> new ArrayList<>()).add(flight);
+		}
+	}
+
+	String baseUrl() {
+		return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/v1/flights";
+	}
+
+	long getRequests() {
+		return requests.sum();
+	}
+
+	long getErrors() {
+		return errors.sum();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		workers.shutdownNow();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requests.increment();
+		try (exchange) {
+			if (latencyMillis > 0) {
+				Thread.sleep(latencyMillis);
+			}
+			if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+				errors.increment();
+				respond(exchange, 503, "{\"error\":{\"code\":\"service_unavailable\",\"message\":\"Injected failure\"}}");
+				return;
+			}
+			Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+			List<FakeFlight> page;
+			long total;
+			if (query.containsKey("flight_iata")) {
+				FakeFlight flight = byNumber.get(query.get("flight_iata").toUpperCase());
+				page = flight == null ? List.of() : List.of(flight);
+				total = page.size();
+			} else {
+				List<FakeFlight> departures = byAirport.getOrDefault(String.valueOf(query.get("dep_iata")).toUpperCase(), List.of());
+				int limit = Integer.parseInt(query.getOrDefault("limit", "100"));
+				int offset = Integer.parseInt(query.getOrDefault("offset", "0"));
+				page = departures.subList(Math.min(offset, departures.size()), Math.min(offset + limit, departures.size()));
+				total = departures.size();
+			}
+			respond(exchange, 200, render(page, total));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private String render(List<FakeFlight> page, long total) {
+		StringBuilder json = new StringBuilder(512 + page.size() * 640);
+		json.append("{\"pagination\":{\"limit\":100,\"offset\":0,\"count\":").append(page.size())
+				.append(",\"total\":").append(total).append("},\"data\":[");
+		for (int i = 0; i < page.size(); i++) {
+			FakeFlight flight = page.get(i);
+			churn(flight);
+			String airline = flight.flightNumber.substring(0, 2);
+			String number = flight.flightNumber.substring(2);
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append("{\"flight_date\":\"").append(flight.scheduledTime.toLocalDate())
+					.append("\",\"flight_status\":\"scheduled\",\"departure\":{\"airport\":\"Load Test ").append(flight.airport)
+					.append("\",\"timezone\":\"UTC\",\"iata\":").append(quoted(flight.airport))
+					.append(",\"icao\":null,\"terminal\":").append(quoted(flight.terminal))
+					.append(",\"gate\":").append(quoted(flight.gate))
+					.append(",\"delay\":").append(flight.delay)
+					.append(",\"scheduled\":\"").append(flight.scheduledTime).append(":00+00:00\"")
+					.append(",\"estimated\":\"").append(flight.scheduledTime.plusMinutes(flight.delay)).append(":00+00:00\"")
+					.append(",\"actual\":null,\"estimated_runway\":null,\"actual_runway\":null},")
+					.append("\"arrival\":{\"airport\":\"Load Test Arrivals\",\"timezone\":\"UTC\",\"iata\":\"ZZZ\",\"icao\":null,")
+					.append("\"terminal\":null,\"gate\":null,\"baggage\":null,\"delay\":null,\"scheduled\":null,\"estimated\":null},")
+					.append("\"airline\":{\"name\":\"Load Test Air\",\"iata\":\"").append(airline).append("\",\"icao\":null},")
+					.append("\"flight\":{\"number\":\"").append(number).append("\",\"iata\":\"").append(flight.flightNumber)
+					.append("\",\"icao\":null,\"codeshared\":null},\"aircraft\":null,\"live\":null}");
+		}
+		return json.append("]}").toString();
+	}
+
+	private void churn(FakeFlight flight) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		if (random.nextDouble() >= churnRate) {
+			return;
+		}
+		if (random.nextBoolean()) {
+			flight.delay += 15 + random.nextInt(30);
+		} else {
+			flight.gate = "G" + random.nextInt(1, 80);
+		}
+	}
+
+	private void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private String quoted(String value) {
+		return value == null ? "null" : "\"" + value + "\"";
+	}
+
+	private Map<String, String> query(String rawQuery) {
+		Map<String, String> query = new HashMap<>();
+		if (rawQuery == null) {
+			return query;
+		}
+		for (String pair : rawQuery.split("&")) {
+			int eq = pair.indexOf('=');
+			if (eq > 0) {
+				query.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+			}
+		}
+		return query;
+	}
+}
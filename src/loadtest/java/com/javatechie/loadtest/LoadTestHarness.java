@@ -0,0 +1,253 @@
+package com.javatechie.loadtest;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.javatechie.FlightApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Runs {@link FlightApplication} end to end against a fake aviationstack server, an SMTP sink
+ * and an in-memory H2 database seeded with N flights, once per N, and reports cycle duration,
+ * upstream calls, database statements and emails per second. Warm-up jitter is turned off, so
+ * the first cycle with partitions leased polls every seeded flight; {@code seconds} should
+ * outlast it, as a cycle still running when the run ends is not in the cycle figures. Options,
+ * as {@code name=value}:
+ * <ul>
+ * <li>{@code flights}: comma-separated N values, default {@code 1000,10000,100000}</li>
+ * <li>{@code subscribersPerFlight}: subscribers seeded per flight, default 2</li>
+ * <li>{@code seconds}: how long each N runs, default 60</li>
+ * <li>{@code tickMillis}: polling tick, default 5000</li>
+ * <li>{@code airports}: departure airports the flights are spread over, default 50</li>
+ * <li>{@code latencyMillis}, {@code errorRate}, {@code churnRate}: fake upstream behaviour,
+ * default 50, 0.01 and 0.05</li>
+ * <li>{@code upstreamRps}: client-side upstream rate limit, default 500</li>
+ * <li>{@code report}: CSV file the results are written to, default {@code target/loadtest-report.csv}</li>
+ * </ul>
+ */
+public final class LoadTestHarness {
+
+	private static final String[] HEADER = {"flights", "subscribers", "cycles", "maxCycleMs", "meanCycleMs", "flightsPolled",
+			"upstreamCalls", "upstreamPerSec", "dbStatements", "dbPerSec", "emails", "emailsPerSec", "recipients"};
+
+	private LoadTestHarness() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		Map<String, String> options = options(args);
+		List<Integer> sizes = new ArrayList<>();
+		for (String size : options.getOrDefault("flights", "1000,10000,100000").split(",")) {
+			sizes.add(Integer.parseInt(size.trim()));
+		}
+		Path report = Path.of(options.getOrDefault("report", "target/loadtest-report.csv"));
+		List<String[]> rows = new ArrayList<>();
+		for (int flights : sizes) {
+			rows.add(run(flights, options));
+			print(rows);
+		}
+		Files.createDirectories(report.toAbsolutePath().getParent());
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(report, StandardCharsets.UTF_8))) {
+			out.println(String.join(",", HEADER));
+			rows.forEach(row -> out.println(String.join(",", row)));
+		}
+		System.out.println("Load test report written to " + report.toAbsolutePath());
+	}
+
+	private static String[] run(int flights, Map<String, String> options) throws Exception {
+		int subscribersPerFlight = Integer.parseInt(options.getOrDefault("subscribersPerFlight", "2"));
+		long seconds = Long.parseLong(options.getOrDefault("seconds", "60"));
+		int airports = Integer.parseInt(options.getOrDefault("airports", "50"));
+		System.out.printf("Running %d flights with %d subscribers for %d seconds%n", flights, flights * subscribersPerFlight, seconds);
+
+		try (FakeAviationstackServer upstream = new FakeAviationstackServer(
+				Long.parseLong(options.getOrDefault("latencyMillis", "50")),
+				Double.parseDouble(options.getOrDefault("errorRate", "0.01")),
+				Double.parseDouble(options.getOrDefault("churnRate", "0.05")));
+				SmtpSink smtp = new SmtpSink()) {
+			List<FakeAviationstackServer.FakeFlight> seed = seed(flights, airports, LocalDateTime.now());
+			seed.forEach(upstream::add);
+
+			CountingDataSource[] dataSource = new CountingDataSource[1];
+			SpringApplicationBuilder builder = new SpringApplicationBuilder(FlightApplication.class)
+					.initializers(context -> {
+						context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+							@Override
+							public Object postProcessAfterInitialization(Object bean, String beanName) {
+								if (bean instanceof DataSource target && !(bean instanceof CountingDataSource)) {
+									dataSource[0] = new CountingDataSource(target);
+									return dataSource[0];
+								}
+								return bean;
+							}
+						});
+						// Seeded once the schema exists and before scheduled polling starts
+						((GenericApplicationContext) context).registerBean("loadTestSeeder", SmartInitializingSingleton.class,
+								() -> () -> insert(context.getBean(JdbcTemplate.class), seed, subscribersPerFlight));
+					});
+			try (ConfigurableApplicationContext context = builder.run(properties(flights, upstream, smtp, options))) {
+				MeterRegistry registry = context.getBean(MeterRegistry.class);
+				long statements = dataSource[0].getStatements();
+				long requests = upstream.getRequests();
+				long messages = smtp.getMessages();
+				long recipients = smtp.getRecipients();
+				double polled = polled(registry);
+				long start = System.nanoTime();
+				TimeUnit.SECONDS.sleep(seconds);
+				double elapsed = (System.nanoTime() - start) / 1e9;
+
+				Timer cycle = registry.find("flight.poll.cycle").timer();
+				long upstreamCalls = upstream.getRequests() - requests;
+				long dbStatements = dataSource[0].getStatements() - statements;
+				long emails = smtp.getMessages() - messages;
+				return new String[] {
+						String.valueOf(flights),
+						String.valueOf((long) flights * subscribersPerFlight),
+						String.valueOf(cycle == null ? 0 : cycle.count()),
+						format(cycle == null ? 0 : cycle.max(TimeUnit.MILLISECONDS)),
+						format(cycle == null ? 0 : cycle.mean(TimeUnit.MILLISECONDS)),
+						String.valueOf((long) (polled(registry) - polled)),
+						String.valueOf(upstreamCalls),
+						format(upstreamCalls / elapsed),
+						String.valueOf(dbStatements),
+						format(dbStatements / elapsed),
+						String.valueOf(emails),
+						format(emails / elapsed),
+						String.valueOf(smtp.getRecipients() - recipients)};
+			}
+		}
+	}
+
+	/**
+	 * Flights departing over the next 12 hours, all running a few minutes late so discovery
+	 * picks them up. One in five has no known departure airport and is polled on its own
+	 * until the first response fills it in.
+	 */
+	private static List<FakeAviationstackServer.FakeFlight> seed(int flights, int airports, LocalDateTime now) {
+		Random random = new Random(flights);
+		List<FakeAviationstackServer.FakeFlight> seed = new ArrayList<>(flights);
+		for (int i = 0; i < flights; i++) {
+			String airport = String.format("%c%c%c", 'A' + i % airports / 26 % 26, 'A' + i % airports % 26, 'X');
+			seed.add(new FakeAviationstackServer.FakeFlight(
+					String.format("LT%d", 1000 + i),
+					airport,
+					now.truncatedTo(ChronoUnit.MINUTES).plusMinutes(30 + random.nextInt(11 * 60)),
+					"G" + random.nextInt(1, 80),
+					String.valueOf(random.nextInt(1, 6)),
+					5 + random.nextInt(20)));
+		}
+		return seed;
+	}
+
+	private static void insert(JdbcTemplate jdbcTemplate, List<FakeAviationstackServer.FakeFlight> seed, int subscribersPerFlight) {
+		jdbcTemplate.batchUpdate("insert into flight (flight_number, scheduled_time, estimated_time, gate, terminal, delay, "
+						+ "departure_airport, version) values (?, ?, ?, ?, ?, ?, ?, 0)", seed, 1000, (ps, flight) -> {
+					ps.setString(1, flight.flightNumber);
+					ps.setTimestamp(2, Timestamp.valueOf(flight.scheduledTime));
+					ps.setTimestamp(3, Timestamp.valueOf(flight.scheduledTime.plusMinutes(flight.delay)));
+					ps.setString(4, flight.gate);
+					ps.setString(5, flight.terminal);
+					ps.setLong(6, flight.delay);
+					ps.setString(7, flight.flightNumber.hashCode() % 5 == 0 ? null : flight.airport);
+				});
+		List<Object[]> users = new ArrayList<>();
+		for (int i = 0; i < seed.size() * subscribersPerFlight; i++) {
+			users.add(new Object[] {"loadtest" + i + "@example.com", "Load Test " + i});
+		}
+		jdbcTemplate.batchUpdate("insert into user (email, name) values (?, ?)", users);
+		// Fresh database, so flights and users are numbered from 1 in insertion order
+		Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+		List<Object[]> subscriptions = new ArrayList<>();
+		for (int i = 0; i < users.size(); i++) {
+			subscriptions.add(new Object[] {(long) i % seed.size() + 1, (long) i + 1, now});
+		}
+		jdbcTemplate.batchUpdate("insert into subscription (flight_id, user_id, created_at) values (?, ?, ?)", subscriptions);
+	}
+
+	private static String[] properties(int flights, FakeAviationstackServer upstream, SmtpSink smtp, Map<String, String> options) {
+		return new String[] {
+				"--spring.main.web-application-type=none",
+				"--spring.datasource.url=jdbc:h2:mem:loadtest" + flights + ";NON_KEYWORDS=USER",
+				"--spring.datasource.driverClassName=org.h2.Driver",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.hibernate.ddl-auto=create",
+				"--spring.mail.host=localhost",
+				"--spring.mail.port=" + smtp.getPort(),
+				"--spring.mail.username=",
+				"--spring.mail.password=",
+				"--spring.mail.properties.mail.smtp.auth=false",
+				"--spring.mail.properties.mail.smtp.starttls.enable=false",
+				"--flight.APIKEY=loadtest",
+				"--flight.APIURL=" + upstream.baseUrl() + "?access_key=%s&flight_iata=%s",
+				"--flight.AIRPORTURL=" + upstream.baseUrl() + "?access_key=%s&dep_iata=%s&limit=%d&offset=%d",
+				"--flight.polling.tickMillis=" + options.getOrDefault("tickMillis", "5000"),
+				"--flight.polling.warmupJitter=false",
+				"--flight.upstream.requestsPerSecond=" + options.getOrDefault("upstreamRps", "500"),
+				"--flight.quota.monthlyCalls=0",
+				"--flight.quota.dailyCalls=0",
+				"--flight.notification.coalesceWindowSeconds=0",
+				"--flight.notification.dispatchMillis=1000",
+				"--logging.level.root=WARN",
+				"--logging.level.org.hibernate.sql=WARN",
+				"--logging.level.com.javatechie=OFF"};
+	}
+
+	private static double polled(MeterRegistry registry) {
+		return registry.find("flight.poll.outcomes").counters().stream().mapToDouble(counter -> counter.count()).sum();
+	}
+
+	private static void print(List<String[]> rows) {
+		StringBuilder table = new StringBuilder();
+		for (String column : HEADER) {
+			table.append(String.format("%15s", column));
+		}
+		table.append('\n');
+		for (String[] row : rows) {
+			for (String value : row) {
+				table.append(String.format("%15s", value));
+			}
+			table.append('\n');
+		}
+		System.out.print(table);
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.1f", value);
+	}
+
+	private static Map<String, String> options(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			String option = arg.startsWith("--") ? arg.substring(2) : arg;
+			if (option.contains("=")) {
+				options.put(option.substring(0, option.indexOf('=')), option.substring(option.indexOf('=') + 1));
+			}
+		}
+		return options;
+	}
+}
@@ -0,0 +1,105 @@
+package com.javatechie.loadtest;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accepts SMTP sessions on a local port and throws the mail away, counting messages and
+ * recipients. No AUTH or STARTTLS is offered.
+ */
+final class SmtpSink implements Closeable {
+
+	private final ServerSocket server;
+	private final ExecutorService sessions = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "smtp-sink");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final LongAdder messages = new LongAdder();
+	private final LongAdder recipients = new LongAdder();
+
+	SmtpSink() throws IOException {
+		server = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+		sessions.execute(this::accept);
+	}
+
+	int getPort() {
+		return server.getLocalPort();
+	}
+
+	long getMessages() {
+		return messages.sum();
+	}
+
+	long getRecipients() {
+		return recipients.sum();
+	}
+
+	@Override
+	public void close() throws IOException {
+		server.close();
+		sessions.shutdownNow();
+	}
+
+	private void accept() {
+		while (!server.isClosed()) {
+			try {
+				Socket socket = server.accept();
+				sessions.execute(() -> session(socket));
+			} catch (IOException e) {
+				return; // Closed
+			}
+		}
+	}
+
+	private void session(Socket socket) {
+		try (socket;
+				BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+				Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+			reply(out, "220 localhost load test sink");
+			String line;
+			while ((line = in.readLine()) != null) {
+				String command = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+				switch (command) {
+					case "EHLO", "HELO", "MAIL", "RSET", "NOOP" -> reply(out, "250 OK");
+					case "RCPT" -> {
+						recipients.increment();
+						reply(out, "250 OK");
+					}
+					case "DATA" -> {
+						reply(out, "354 End data with <CR><LF>.<CR><LF>");
+						while ((line = in.readLine()) != null && !line.equals(".")) {
+							// Discard the message
+						}
+						messages.increment();
+						reply(out, "250 OK");
+					}
+					case "QUIT" -> {
+						reply(out, "221 Bye");
+						return;
+					}
+					default -> reply(out, "502 Command not implemented");
+				}
+			}
+		} catch (IOException e) {
+			// Client went away
+		}
+	}
+
+	private void reply(Writer out, String line) throws IOException {
+		out.write(line);
+		out.write("\r\n");
+		out.flush();
+	}
+}
@@ -0,0 +1,62 @@
+package com.javatechie.config;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Copies subscriptions from the {@code flight_user_list} join table used by the old
+ * {@code Flight.userList} mapping into {@code subscription}. Safe to run on every start.
+ */
+@Component
+public class LegacySubscriptionMigration implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LegacySubscriptionMigration.class);
+    private static final String LEGACY_TABLE = "flight_user_list";
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            if (!legacyTableExists()) {
+                return;
+            }
+            int copied = jdbcTemplate.update("insert into subscription (flight_id, user_id, created_at) "
+                    + "select l.flight_id, l.user_list_userid, current_timestamp from " + LEGACY_TABLE + " l "
+                    + "where not exists (select 1 from subscription s where s.flight_id = l.flight_id and s.user_id = l.user_list_userid)");
+            if (copied > 0) {
+                logger.info("Migrated {} subscriptions from {}", copied, LEGACY_TABLE);
+            }
+        } catch (Exception e) {
+            logger.error("Error migrating legacy subscriptions: {}", e.getMessage());
+        }
+    }
+
+    private boolean legacyTableExists() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : new String[] {LEGACY_TABLE, LEGACY_TABLE.toUpperCase()}) {
+                try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, name, new String[] {"TABLE"})) {
+                    if (tables.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -3,17 +3,24 @@ package com.javatechie.controller;
 import com.javatechie.model.Flight;
 import com.javatechie.model.User;
 import com.javatechie.service.FlightApiService;
+import com.javatechie.service.FlightEventBroker;
+import com.javatechie.service.FlightHistoryService;
 import com.javatechie.service.FlightService;
+import com.javatechie.service.SubscriptionService;
 import com.javatechie.service.UserService;
+import com.javatechie.service.UpstreamUnavailableException;
 import org.apache.http.HttpStatus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.io.InputStream;
 
 @RestController
 public class FlightController {
@@ -22,49 +29,85 @@ public class FlightController {
     private FlightService flightService;
 
     @Autowired
-    private UserService userService;
+    private SubscriptionService subscriptionService;
 
     @Autowired
     private FlightApiService flightApiService;
 
+    @Autowired
+    private FlightEventBroker flightEventBroker;
+
+    @Autowired
+    private FlightHistoryService flightHistoryService;
 
-    private static final String EMAIL_REGEX = "^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$";
-    private static final Pattern EMAIL_PATTERN = Pattern.compile(EMAIL_REGEX);
 
     public static boolean isValidEmail(String email) {
-        Matcher matcher = EMAIL_PATTERN.matcher(email);
-        return matcher.matches();
+        return UserService.isValidEmail(email);
     }
 
 
     @PostMapping("/subscribe")
     public ResponseEntity<String> saveSubscribeUser(@RequestBody Flight data) {
-        Flight flight = flightService.findAllFlightByNumber(data);
-        User user = data.getUserList().stream().findFirst().orElse(null);
+        User user = data.getUserList() == null ? null : data.getUserList().stream().findFirst().orElse(null);
         if (user == null || !isValidEmail(user.getEmail())) {
             return ResponseEntity.status(HttpStatus.SC_PARTIAL_CONTENT).body("Email is not valid");
         }
-        if (flight == null) {
-            flightService.saveFlightData(data);
-        } else {
-            userService.saveUser(user);
-            Set<User> existingList = flight.getUserList();
-            existingList.add(user);
-            flight.setUserList(existingList);
-            flightService.saveFlightData(flight);
+        try {
+            Flight flight = flightService.findOrCreateFlight(data);
+            if (!subscriptionService.subscribe(flight, user)) {
+                return ResponseEntity.status(HttpStatus.SC_OK).body("You are already subscribed to this flight");
+            }
+        } catch (DataAccessException e) {
+            return ResponseEntity.status(HttpStatus.SC_INTERNAL_SERVER_ERROR).body("Could not save subscription");
         }
-        flightService.firstTimeEmailConfirmation(data);
         return ResponseEntity.status(HttpStatus.SC_OK).body("Thanks for subscribing");
     }
 
 
+    @PostMapping(value = "/subscribe/bulk", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<SubscriptionService.BulkResult> bulkSubscribe(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                       InputStream body) {
+        try {
+            boolean csv = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.valueOf("text/csv"));
+            return ResponseEntity.status(HttpStatus.SC_OK).body(subscriptionService.subscribeAll(body, csv));
+        } catch (IOException e) {
+            return new ResponseEntity<>(HttpStatusCode.valueOf(HttpStatus.SC_BAD_REQUEST));
+        }
+    }
+
+
     @PostMapping("/getFlightInfo")
     public ResponseEntity<String> getFlightInfo(@RequestParam String flightNumber){
-        String flightInfo=flightApiService.getFlightInfo(flightNumber.trim());
+        String flightInfo;
+        try {
+            flightInfo=flightApiService.getFlightInfo(flightNumber.trim());
+        } catch (UpstreamUnavailableException e) {
+            return new ResponseEntity<>(HttpStatusCode.valueOf(HttpStatus.SC_SERVICE_UNAVAILABLE));
+        }
         if(flightInfo==null){
             return new ResponseEntity<>(HttpStatusCode.valueOf(HttpStatus.SC_NOT_FOUND));
         }
         return new ResponseEntity<>(flightInfo, HttpStatusCode.valueOf(HttpStatus.SC_OK));
     }
 
+
+    @GetMapping(value = "/flightEvents", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamFlightEvents(@RequestParam String flightNumber){
+        SseEmitter emitter = flightEventBroker.subscribe(flightNumber);
+        if(emitter==null){
+            return new ResponseEntity<>(HttpStatusCode.valueOf(HttpStatus.SC_SERVICE_UNAVAILABLE));
+        }
+        return new ResponseEntity<>(emitter, HttpStatusCode.valueOf(HttpStatus.SC_OK));
+    }
+
+
+    @GetMapping("/flightStats")
+    public ResponseEntity<FlightHistoryService.FlightStats> getFlightStats(@RequestParam String flightNumber){
+        FlightHistoryService.FlightStats stats = flightHistoryService.getStats(flightNumber);
+        if(stats==null){
+            return new ResponseEntity<>(HttpStatusCode.valueOf(HttpStatus.SC_NOT_FOUND));
+        }
+        return new ResponseEntity<>(stats, HttpStatusCode.valueOf(HttpStatus.SC_OK));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.javatechie.health;
+
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import com.javatechie.service.ApiQuotaManager;
+
+@Component("apiQuota")
+public class ApiQuotaHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private ApiQuotaManager apiQuotaManager;
+
+    @Override
+    public Health health() {
+        LocalDateTime depletion = apiQuotaManager.projectedDepletion(LocalDateTime.now());
+        return Health.up()
+                .withDetail("usedToday", apiQuotaManager.getUsedToday())
+                .withDetail("dailyCalls", apiQuotaManager.getDailyCalls())
+                .withDetail("usedThisMonth", apiQuotaManager.getUsedThisMonth())
+                .withDetail("monthlyCalls", apiQuotaManager.getMonthlyCalls())
+                .withDetail("callsPerHour", Math.round(apiQuotaManager.getCallsPerHour()))
+                .withDetail("lastTickAllowance", apiQuotaManager.getLastAllowance())
+                .withDetail("lastTickDeferred", apiQuotaManager.getLastDeferred())
+                .withDetail("exhaustedUntil", String.valueOf(apiQuotaManager.getExhaustedUntil()))
+                .withDetail("projectedDepletion", depletion == null ? "not before reset" : depletion.toString())
+                .build();
+    }
+}
@@ -0,0 +1,32 @@
+package com.javatechie.health;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import com.javatechie.service.FlightService;
+
+/**
+ * Out of service until the first polling cycle has loaded the flights to poll. Part of the
+ * readiness group, so {@code /actuator/health/readiness} only reports UP after the warm-up.
+ */
+@Component("pollingWarmup")
+public class PollingWarmupHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private FlightService flightService;
+
+    @Override
+    public Health health() {
+        if (!flightService.isWarmedUp()) {
+            return Health.outOfService()
+                    .withDetail("reason", "Loading flights to poll")
+                    .build();
+        }
+        return Health.up()
+                .withDetail("trackedFlights", flightService.getTrackedFlights())
+                .withDetail("resumedFlights", flightService.getResumedFlights())
+                .build();
+    }
+}
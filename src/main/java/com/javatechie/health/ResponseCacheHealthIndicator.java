@@ -0,0 +1,29 @@
+package com.javatechie.health;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.javatechie.service.FlightResponseCache;
+
+@Component("responseCache")
+public class ResponseCacheHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private FlightResponseCache flightResponseCache;
+
+    @Override
+    public Health health() {
+        CacheStats stats = flightResponseCache.getStats();
+        return Health.up()
+                .withDetail("size", flightResponseCache.getSize())
+                .withDetail("hits", stats.hitCount())
+                .withDetail("misses", stats.missCount())
+                .withDetail("loads", stats.loadCount())
+                .withDetail("loadFailures", stats.loadFailureCount())
+                .withDetail("evictions", stats.evictionCount())
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package com.javatechie.health;
+
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import com.javatechie.service.UpstreamClient;
+
+@Component("upstream")
+public class UpstreamHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private UpstreamClient upstreamClient;
+
+    @Override
+    public Health health() {
+        PoolStats pool = upstreamClient.getPoolStats();
+        return Health.up()
+                .withDetail("circuitState", upstreamClient.getCircuitState())
+                .withDetail("failureRate", upstreamClient.getFailureRate())
+                .withDetail("leasedConnections", pool.getLeased())
+                .withDetail("availableConnections", pool.getAvailable())
+                .withDetail("pendingRequests", pool.getPending())
+                .withDetail("maxConnections", pool.getMax())
+                .build();
+    }
+}
@@ -0,0 +1,22 @@
+package com.javatechie.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Upstream calls made in one period, shared by all instances. {@code periodKey} is
+ * {@code day:yyyy-MM-dd}, {@code month:yyyy-MM}, or {@code interactive:yyyy-MM-dd} for the
+ * calls made by /getFlightInfo lookups that day.
+ */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Setter
+@Getter
+public class ApiUsage {
+
+    @Id
+    private String periodKey;
+    private long callCount;
+}
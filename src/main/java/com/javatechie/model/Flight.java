@@ -2,11 +2,14 @@ package com.javatechie.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
+@Table(indexes = @Index(name = "idx_flight_scheduled_time", columnList = "scheduledTime"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_flight_number", columnNames = "flight_number"))
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
@@ -24,6 +27,11 @@ public class Flight {
     private String gate;
     private Long delay;
     private String timeZone;
-    @OneToMany(fetch = FetchType.EAGER,cascade = CascadeType.ALL, orphanRemoval = true)
+    private String flightStatus;
+    private String departureAirport;
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+    @Transient
     private Set<User> userList;
 }
@@ -0,0 +1,33 @@
+package com.javatechie.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Running totals for one flight number on one scheduled departure day, kept up to date as
+ * status changes are committed.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_daily_stats_flight_day", columnNames = {"flight_number", "service_day"}))
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Setter
+@Getter
+public class FlightDailyStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String flightNumber;
+    private LocalDate serviceDay;
+    private long lastDelay;
+    private long maxDelay;
+    private int statusChanges;
+    private int gateChanges;
+    private boolean cancelled;
+    private LocalDateTime updatedAt;
+}
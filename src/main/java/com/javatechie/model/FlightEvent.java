@@ -0,0 +1,21 @@
+package com.javatechie.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A committed change to a flight, as pushed to stream clients.
+ */
+public record FlightEvent(
+        String type,
+        String flightNumber,
+        LocalDateTime scheduledTime,
+        LocalDateTime estimatedTime,
+        String gate,
+        String terminal,
+        Long delay,
+        Long version,
+        LocalDateTime occurredAt) {
+
+    public static final String CHANGE = "change";
+    public static final String CANCELLATION = "cancellation";
+}
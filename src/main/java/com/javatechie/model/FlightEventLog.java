@@ -0,0 +1,33 @@
+package com.javatechie.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A committed flight event, written with the flight update so every instance can relay it to
+ * its own stream clients. Rows are kept for {@code flight.stream.retentionMinutes}.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_event_log_occurred_at", columnList = "occurredAt"))
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Setter
+@Getter
+public class FlightEventLog {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String type;
+    private String flightNumber;
+    private LocalDateTime scheduledTime;
+    private LocalDateTime estimatedTime;
+    private String gate;
+    private String terminal;
+    private Long delay;
+    private Long version;
+    private LocalDateTime occurredAt;
+}
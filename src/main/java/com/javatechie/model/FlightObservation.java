@@ -0,0 +1,17 @@
+package com.javatechie.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * The handful of fields the poller reads from one aviationstack {@code data} item.
+ */
+public record FlightObservation(
+        String flightStatus,
+        String flightIata,
+        String departureIata,
+        LocalDateTime scheduledTime,
+        LocalDateTime estimatedTime,
+        String gate,
+        String terminal,
+        Long delay) {
+}
@@ -0,0 +1,32 @@
+package com.javatechie.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One committed status change of a flight, appended and never updated.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_status_history_flight_day", columnList = "flightNumber, serviceDay"))
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Setter
+@Getter
+public class FlightStatusHistory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private Long flightId;
+    private String flightNumber;
+    private LocalDate serviceDay;
+    private LocalDateTime observedAt;
+    private Long delay;
+    private String gate;
+    private String terminal;
+    private boolean cancelled;
+}
@@ -0,0 +1,7 @@
+package com.javatechie.model;
+
+public enum NotificationKind {
+    CHANGE,
+    CANCELLATION,
+    CONFIRMATION
+}
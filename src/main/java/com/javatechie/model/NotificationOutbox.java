@@ -0,0 +1,53 @@
+package com.javatechie.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One rendered notification. Flight notifications leave {@code recipients} empty and are fanned
+ * out to the flight's subscribers when sent; after a partial failure it holds the recipients
+ * still to retry. {@code dedupKey} identifies the flight event behind a notice, so an event seen
+ * by more than one instance is only queued once.
+ */
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_outbox_status_next_attempt", columnList = "status, nextAttemptAt"),
+        @Index(name = "idx_outbox_flight_kind_status", columnList = "flightId, kind, status"),
+        @Index(name = "idx_outbox_claim_token", columnList = "claimToken")
+})
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Setter
+@Getter
+public class NotificationOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private Long flightId;
+    @Enumerated(EnumType.STRING)
+    private NotificationKind kind;
+    @Lob
+    private String recipients;
+    private String subject;
+    @Lob
+    private String body;
+    @Lob
+    private String changeLog;
+    private int digestCount;
+    @Enumerated(EnumType.STRING)
+    private OutboxStatus status;
+    private int attempts;
+    private LocalDateTime createdAt;
+    private LocalDateTime nextAttemptAt;
+    private String claimToken;
+    private LocalDateTime claimedAt;
+    private LocalDateTime sentAt;
+    @Column(length = 1000)
+    private String lastError;
+    @Column(unique = true)
+    private String dedupKey;
+}
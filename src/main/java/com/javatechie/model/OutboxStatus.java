@@ -0,0 +1,8 @@
+package com.javatechie.model;
+
+public enum OutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    DEAD
+}
@@ -0,0 +1,24 @@
+package com.javatechie.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ownership of one polling partition. A flight belongs to partition {@code id % partitions};
+ * an instance polls a partition only while it holds an unexpired lease on it.
+ */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Setter
+@Getter
+public class PartitionLease {
+
+    @Id
+    private Integer partitionId;
+    private String ownerId;
+    private LocalDateTime leaseUntil;
+}
@@ -0,0 +1,24 @@
+package com.javatechie.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * When a flight was last polled and how many polls in a row came back unchanged, saved
+ * periodically so a restarted instance resumes the flight's polling rhythm.
+ */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Setter
+@Getter
+public class PollCheckpoint {
+
+    @Id
+    private Long flightId;
+    private LocalDateTime lastPolledAt;
+    private int unchangedCount;
+}
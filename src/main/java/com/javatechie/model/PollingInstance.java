@@ -0,0 +1,22 @@
+package com.javatechie.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Heartbeat of a running application instance, used to size each instance's share of partitions.
+ */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Setter
+@Getter
+public class PollingInstance {
+
+    @Id
+    private String instanceId;
+    private LocalDateTime heartbeatAt;
+}
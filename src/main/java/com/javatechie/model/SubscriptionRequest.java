@@ -0,0 +1,13 @@
+package com.javatechie.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One flight/email pair from a bulk subscription upload.
+ */
+public record SubscriptionRequest(
+        String flightNumber,
+        String email,
+        String name,
+        LocalDateTime scheduledTime) {
+}
@@ -0,0 +1,13 @@
+package com.javatechie.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.javatechie.model.FlightDailyStats;
+
+public interface FlightDailyStatsRepository extends JpaRepository<FlightDailyStats, Long> {
+
+    List<FlightDailyStats> findByFlightNumberOrderByServiceDayDesc(String flightNumber, Pageable page);
+}
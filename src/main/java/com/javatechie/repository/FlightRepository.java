@@ -1,8 +1,25 @@
 package com.javatechie.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import com.javatechie.model.Flight;
 
 public interface FlightRepository extends JpaRepository<Flight, Long> {
     Flight findByFlightNumber(String flightNumber);
+
+    List<Flight> findByFlightNumberIn(Collection<String> flightNumbers);
+
+    @Query("select f from Flight f where f.scheduledTime > :from and f.scheduledTime < :to "
+            + "and f.estimatedTime > f.scheduledTime and (f.flightStatus is null or f.flightStatus <> 'cancelled') "
+            + "and mod(f.id, :partitions) in :owned and f.id > :afterId order by f.id")
+    List<Flight> findDueFlights(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                @Param("partitions") int partitions, @Param("owned") Collection<Integer> owned,
+                                @Param("afterId") long afterId, Pageable page);
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.javatechie.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.javatechie.model.NotificationKind;
+import com.javatechie.model.NotificationOutbox;
+import com.javatechie.model.OutboxStatus;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    @Query("select o.id from NotificationOutbox o where o.status = :status and o.nextAttemptAt <= :now order by o.id")
+    List<Long> findDueIds(@Param("status") OutboxStatus status, @Param("now") LocalDateTime now, Pageable page);
+
+    @Transactional
+    @Modifying
+    @Query("update NotificationOutbox o set o.status = :sending, o.claimToken = :token, o.claimedAt = :now "
+            + "where o.id in :ids and o.status = :pending and o.nextAttemptAt <= :now")
+    int claim(@Param("ids") List<Long> ids, @Param("token") String token, @Param("now") LocalDateTime now,
+              @Param("pending") OutboxStatus pending, @Param("sending") OutboxStatus sending);
+
+    List<NotificationOutbox> findByClaimTokenAndStatus(String claimToken, OutboxStatus status);
+
+    @Transactional
+    @Modifying
+    @Query("update NotificationOutbox o set o.status = :pending, o.claimToken = null "
+            + "where o.status = :sending and o.claimedAt < :before")
+    int releaseStaleClaims(@Param("before") LocalDateTime before,
+                           @Param("pending") OutboxStatus pending, @Param("sending") OutboxStatus sending);
+
+    boolean existsByDedupKey(String dedupKey);
+
+    NotificationOutbox findFirstByFlightIdAndKindAndStatusOrderByIdDesc(Long flightId, NotificationKind kind, OutboxStatus status);
+
+    @Modifying
+    @Query("update NotificationOutbox o set o.body = :body, o.changeLog = :changeLog, o.digestCount = o.digestCount + 1 "
+            + "where o.id = :id and o.status = :pending and o.attempts = 0 and o.nextAttemptAt > :now")
+    int mergeDigest(@Param("id") Long id, @Param("body") String body, @Param("changeLog") String changeLog,
+                    @Param("now") LocalDateTime now, @Param("pending") OutboxStatus pending);
+}
@@ -0,0 +1,8 @@
+package com.javatechie.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.javatechie.model.PollCheckpoint;
+
+public interface PollCheckpointRepository extends JpaRepository<PollCheckpoint, Long> {
+}
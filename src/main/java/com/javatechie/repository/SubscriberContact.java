@@ -0,0 +1,7 @@
+package com.javatechie.repository;
+
+public interface SubscriberContact {
+    String getEmail();
+
+    String getPhoneNumber();
+}
@@ -0,0 +1,24 @@
+package com.javatechie.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.javatechie.model.Subscription;
+
+public interface SubscriptionRepository extends JpaRepository<Subscription, Long> {
+
+    @Query("select u.email as email, u.phoneNumber as phoneNumber from Subscription s join s.user u where s.flight.id = :flightId")
+    List<SubscriberContact> findSubscriberContacts(@Param("flightId") Long flightId);
+
+    boolean existsByFlightIdAndUserUserid(Long flightId, Long userId);
+
+    @Query("select s.flight.id, count(s) from Subscription s where s.flight.id in :flightIds group by s.flight.id")
+    List<Object[]> countByFlightIds(@Param("flightIds") Collection<Long> flightIds);
+
+    @Query("select s.flight.id, s.user.userid from Subscription s where s.flight.id in :flightIds and s.user.userid in :userIds")
+    List<Object[]> findPairs(@Param("flightIds") Collection<Long> flightIds, @Param("userIds") Collection<Long> userIds);
+}
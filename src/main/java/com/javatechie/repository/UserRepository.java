@@ -1,8 +1,14 @@
 package com.javatechie.repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.javatechie.model.User;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    User findFirstByEmail(String email);
+
+    List<User> findByEmailIn(Collection<String> emails);
 }
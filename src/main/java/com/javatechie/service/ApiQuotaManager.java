@@ -0,0 +1,293 @@
+package com.javatechie.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Budgets aviationstack calls against {@code flight.quota.dailyCalls} and
+ * {@code flight.quota.monthlyCalls} (0 means no limit). Calls are counted in memory and added to
+ * the shared {@code api_usage} rows every {@code flight.quota.syncMillis}, so all instances
+ * spend from the same budget. The monthly budget renews on {@code flight.quota.resetDay} and is
+ * paced evenly over the days left until then; each polling tick gets a share of what is left
+ * for today. A share of each day's
+ * budget ({@code flight.quota.interactiveReserve}) is kept back from the poller for
+ * /getFlightInfo lookups until they have used it. Once aviationstack reports the quota used up,
+ * polling pauses until the reset, apart from one probe call every {@code flight.quota.probeMinutes}
+ * so that a quota the provider renews early is picked up again.
+ */
+@Component
+public class ApiQuotaManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApiQuotaManager.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${flight.quota.dailyCalls:0}")
+    private long dailyCalls;
+    @Value("${flight.quota.monthlyCalls:0}")
+    private long monthlyCalls;
+    @Value("${flight.quota.resetDay:1}")
+    private int resetDay;
+    @Value("${flight.quota.probeMinutes:60}")
+    private long probeMinutes;
+    @Value("${flight.quota.burstFactor:4}")
+    private long burstFactor;
+    @Value("${flight.quota.interactiveReserve:0.1}")
+    private double interactiveReserve;
+    @Value("${flight.polling.tickMillis:30000}")
+    private long tickMillis;
+
+    private final AtomicLong unsynced = new AtomicLong();
+    private final AtomicLong unsyncedInteractive = new AtomicLong();
+    private volatile LocalDate syncedDay;
+    private volatile long usedToday;
+    private volatile long interactiveToday;
+    private volatile long usedThisMonth;
+    private volatile double callsPerHour;
+    private volatile LocalDateTime lastSyncAt;
+    private volatile LocalDateTime exhaustedUntil;
+    private volatile LocalDateTime nextProbeAt;
+    private volatile int lastAllowance = Integer.MAX_VALUE;
+    private final AtomicInteger lastDeferred = new AtomicInteger();
+
+    public void recordCall() {
+        unsynced.incrementAndGet();
+    }
+
+    /**
+     * Marks one of the counted calls as made for a /getFlightInfo lookup, so it is spent from
+     * the interactive reserve.
+     */
+    public void recordInteractiveCall() {
+        unsyncedInteractive.incrementAndGet();
+    }
+
+    /**
+     * Stops polling until the plan's quota resets, after aviationstack reported it used up.
+     */
+    public void markExhausted(LocalDateTime now) {
+        if (exhaustedUntil == null || !now.isBefore(exhaustedUntil)) {
+            nextProbeAt = now.plusMinutes(probeMinutes);
+            exhaustedUntil = nextReset(now.toLocalDate()).atStartOfDay();
+            logger.error("aviationstack usage limit reached, polling paused until {}", exhaustedUntil);
+        }
+    }
+
+    /**
+     * Resumes polling before the reset when aviationstack answers a request normally again.
+     */
+    public void markAvailable(LocalDateTime now) {
+        if (exhaustedUntil != null && now.isBefore(exhaustedUntil)) {
+            exhaustedUntil = null;
+            logger.info("aviationstack accepts requests again, polling resumed");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${flight.quota.syncMillis:10000}")
+    public void sync() {
+        try {
+            sync(LocalDateTime.now());
+        } catch (Exception e) {
+            logger.error("Error syncing API usage: {}", e.getMessage());
+        }
+    }
+
+    synchronized void sync(LocalDateTime now) {
+        long calls = unsynced.getAndSet(0);
+        long interactiveCalls = unsyncedInteractive.getAndSet(0);
+        LocalDate today = now.toLocalDate();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                add(dayKey(today), calls);
+                add(monthKey(today), calls);
+                add(interactiveKey(today), interactiveCalls);
+            });
+        } catch (RuntimeException e) {
+            unsynced.addAndGet(calls);
+            unsyncedInteractive.addAndGet(interactiveCalls);
+            throw e;
+        }
+        long previousMonth = samePeriod(syncedDay, today) ? usedThisMonth : 0;
+        usedToday = read(dayKey(today));
+        interactiveToday = read(interactiveKey(today));
+        usedThisMonth = read(monthKey(today));
+        if (lastSyncAt != null) {
+            double hours = Duration.between(lastSyncAt, now).toMillis() / 3_600_000.0;
+            if (hours > 0) {
+                double rate = Math.max(0, usedThisMonth - previousMonth) / hours;
+                callsPerHour = callsPerHour == 0 ? rate : 0.8 * callsPerHour + 0.2 * rate;
+            }
+        }
+        syncedDay = today;
+        lastSyncAt = now;
+    }
+
+    /**
+     * Number of upstream calls the polling cycle may spend now, leaving the unused part of the
+     * interactive reserve for /getFlightInfo.
+     */
+    public int allowance(LocalDateTime now) {
+        if (exhaustedUntil != null && now.isBefore(exhaustedUntil)) {
+            if (now.isBefore(nextProbeAt)) {
+                return 0;
+            }
+            nextProbeAt = now.plusMinutes(probeMinutes);
+            return 1; // One call to find out whether the quota was renewed early
+        }
+        LocalDate today = now.toLocalDate();
+        long usedDay = usedToday(today);
+        long remainingToday = Long.MAX_VALUE;
+        if (monthlyCalls > 0) {
+            long daysLeft = ChronoUnit.DAYS.between(today, nextReset(today));
+            long monthRemaining = Math.max(0, monthlyCalls - usedThisMonth(today));
+            remainingToday = Math.max(0, (monthRemaining + usedDay) / daysLeft - usedDay);
+        }
+        if (dailyCalls > 0) {
+            remainingToday = Math.min(remainingToday, Math.max(0, dailyCalls - usedDay));
+        }
+        if (remainingToday == Long.MAX_VALUE) {
+            return Integer.MAX_VALUE;
+        }
+        long reserve = (long) Math.ceil((usedDay + remainingToday) * interactiveReserve);
+        remainingToday = Math.max(0, remainingToday - Math.max(0, reserve - interactiveToday(today)));
+        long ticksLeft = Math.max(1, Duration.between(now, today.plusDays(1).atStartOfDay()).toMillis() / tickMillis);
+        long perTick = (remainingToday + ticksLeft - 1) / ticksLeft * burstFactor;
+        return (int) Math.min(Integer.MAX_VALUE, Math.min(remainingToday, perTick));
+    }
+
+    public void recordTick(int allowance, int deferred) {
+        lastAllowance = allowance;
+        lastDeferred.set(deferred);
+    }
+
+    /**
+     * Adds flights the polling cycle dropped after running out of calls part-way through the tick.
+     */
+    public void recordDeferred(int deferred) {
+        lastDeferred.addAndGet(deferred);
+    }
+
+    /**
+     * When the monthly budget runs out at the recent call rate, or null if it lasts until the reset.
+     */
+    public LocalDateTime projectedDepletion(LocalDateTime now) {
+        if (monthlyCalls <= 0) {
+            return null;
+        }
+        long remaining = monthlyCalls - usedThisMonth(now.toLocalDate());
+        if (remaining <= 0) {
+            return now;
+        }
+        if (callsPerHour <= 0) {
+            return null;
+        }
+        LocalDateTime depletion = now.plusSeconds((long) (remaining / callsPerHour * 3600));
+        return depletion.isBefore(nextReset(now.toLocalDate()).atStartOfDay()) ? depletion : null;
+    }
+
+    public long getUsedToday() {
+        return usedToday(LocalDate.now());
+    }
+
+    public long getUsedThisMonth() {
+        return usedThisMonth(LocalDate.now());
+    }
+
+    public long getDailyCalls() {
+        return dailyCalls;
+    }
+
+    public long getMonthlyCalls() {
+        return monthlyCalls;
+    }
+
+    public double getCallsPerHour() {
+        return callsPerHour;
+    }
+
+    public LocalDateTime getExhaustedUntil() {
+        return exhaustedUntil;
+    }
+
+    public int getLastAllowance() {
+        return lastAllowance;
+    }
+
+    public int getLastDeferred() {
+        return lastDeferred.get();
+    }
+
+    private long usedToday(LocalDate today) {
+        return (today.equals(syncedDay) ? usedToday : 0) + unsynced.get();
+    }
+
+    private long interactiveToday(LocalDate today) {
+        return (today.equals(syncedDay) ? interactiveToday : 0) + unsyncedInteractive.get();
+    }
+
+    private long usedThisMonth(LocalDate today) {
+        return (samePeriod(syncedDay, today) ? usedThisMonth : 0) + unsynced.get();
+    }
+
+    private boolean samePeriod(LocalDate day, LocalDate other) {
+        return day != null && periodStart(day).equals(periodStart(other));
+    }
+
+    /**
+     * The day the current quota period started, the last reset day on or before {@code day}.
+     */
+    private LocalDate periodStart(LocalDate day) {
+        LocalDate reset = resetIn(YearMonth.from(day));
+        return day.isBefore(reset) ? resetIn(YearMonth.from(day).minusMonths(1)) : reset;
+    }
+
+    private LocalDate nextReset(LocalDate day) {
+        return resetIn(YearMonth.from(periodStart(day)).plusMonths(1));
+    }
+
+    private LocalDate resetIn(YearMonth month) {
+        return month.atDay(Math.min(Math.max(1, resetDay), month.lengthOfMonth()));
+    }
+
+    private void add(String periodKey, long calls) {
+        if (jdbcTemplate.update("update api_usage set call_count = call_count + ? where period_key = ?", calls, periodKey) == 0) {
+            jdbcTemplate.update("insert into api_usage (period_key, call_count) select ?, 0 from (select 1 as one) seed "
+                    + "where not exists (select 1 from api_usage where period_key = ?)", periodKey, periodKey);
+            jdbcTemplate.update("update api_usage set call_count = call_count + ? where period_key = ?", calls, periodKey);
+        }
+    }
+
+    private long read(String periodKey) {
+        Long calls = jdbcTemplate.queryForObject("select call_count from api_usage where period_key = ?", Long.class, periodKey);
+        return calls == null ? 0 : calls;
+    }
+
+    private String dayKey(LocalDate day) {
+        return "day:" + day;
+    }
+
+    private String interactiveKey(LocalDate day) {
+        return "interactive:" + day;
+    }
+
+    private String monthKey(LocalDate day) {
+        return "month:" + periodStart(day).toString().substring(0, 7); // The month the period started in
+    }
+}
@@ -0,0 +1,26 @@
+package com.javatechie.service;
+
+import java.io.IOException;
+
+/**
+ * aviationstack answered with an {@code error} object instead of data.
+ */
+public class AviationstackErrorException extends IOException {
+
+    public static final String USAGE_LIMIT_REACHED = "usage_limit_reached";
+
+    private final String code;
+
+    public AviationstackErrorException(String code, String message) {
+        super(code + ": " + message);
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public boolean isQuotaExhausted() {
+        return USAGE_LIMIT_REACHED.equals(code);
+    }
+}
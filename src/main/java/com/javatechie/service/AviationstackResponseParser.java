@@ -0,0 +1,185 @@
+package com.javatechie.service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.javatechie.model.FlightObservation;
+
+/**
+ * Streams an aviationstack {@code /flights} response and keeps only the fields the poller
+ * needs, skipping everything else without building a tree. An {@code error} response is
+ * raised as {@link AviationstackErrorException}.
+ */
+@Component
+public class AviationstackResponseParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(AviationstackResponseParser.class);
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public record Page(List<FlightObservation> data, long total) {
+    }
+
+    public Page parse(byte[] response) throws IOException {
+        List<FlightObservation> data = new ArrayList<>();
+        long total = 0;
+        try (JsonParser parser = jsonFactory.createParser(response)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object at the top level");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if ("data".equals(field) && token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        data.add(readItem(parser));
+                    }
+                } else if ("pagination".equals(field) && token == JsonToken.START_OBJECT) {
+                    total = readTotal(parser);
+                } else if ("error".equals(field) && token == JsonToken.START_OBJECT) {
+                    throw readError(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return new Page(data, total);
+    }
+
+    private FlightObservation readItem(JsonParser parser) throws IOException {
+        String flightStatus = null;
+        String flightIata = null;
+        String departureIata = null;
+        LocalDateTime scheduledTime = null;
+        LocalDateTime estimatedTime = null;
+        String gate = null;
+        String terminal = null;
+        Long delay = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if ("flight_status".equals(field)) {
+                flightStatus = text(parser);
+            } else if ("flight".equals(field) && token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String flightField = parser.currentName();
+                    parser.nextToken();
+                    if ("iata".equals(flightField)) {
+                        flightIata = text(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if ("departure".equals(field) && token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String departureField = parser.currentName();
+                    parser.nextToken();
+                    switch (departureField) {
+                        case "iata" -> departureIata = text(parser);
+                        case "scheduled" -> scheduledTime = parseDateTime(text(parser));
+                        case "estimated" -> estimatedTime = parseDateTime(text(parser));
+                        case "gate" -> gate = text(parser);
+                        case "terminal" -> terminal = text(parser);
+                        case "delay" -> delay = number(parser);
+                        default -> parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new FlightObservation(flightStatus, flightIata, departureIata, scheduledTime, estimatedTime, gate, terminal, delay);
+    }
+
+    private long readTotal(JsonParser parser) throws IOException {
+        long total = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("total".equals(field) && parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                total = parser.getLongValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return total;
+    }
+
+    private AviationstackErrorException readError(JsonParser parser) throws IOException {
+        String code = null;
+        String message = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("code".equals(field)) {
+                code = text(parser);
+            } else if ("message".equals(field)) {
+                message = text(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new AviationstackErrorException(code, message);
+    }
+
+    private String text(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getText();
+    }
+
+    private Long number(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        String text = text(parser);
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(text.trim());
+        } catch (NumberFormatException e) {
+            logger.debug("Ignoring non-numeric delay '{}'", text);
+            return null;
+        }
+    }
+
+    /**
+     * aviationstack reports departure times as airport wall-clock time with an offset suffix;
+     * the wall-clock part is what gets stored and compared.
+     */
+    LocalDateTime parseDateTime(String dateTime) {
+        if (dateTime == null || dateTime.isBlank()) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(dateTime, DateTimeFormatter.ISO_OFFSET_DATE_TIME).toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(dateTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            } catch (DateTimeParseException ignored) {
+                logger.debug("Ignoring unparseable date time '{}'", dateTime);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.javatechie.service;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Count-based circuit breaker. Opens when the failure rate over the last {@code windowSize}
+ * calls crosses the threshold, lets a single trial call through once the open period ends,
+ * and doubles the open period each time the trial fails.
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long baseOpenMillis;
+    private final long maxOpenMillis;
+
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int failureCount;
+
+    private State state = State.CLOSED;
+    private long openUntil;
+    private long openMillis;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          long baseOpenMillis, long maxOpenMillis) {
+        this.name = name;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.baseOpenMillis = baseOpenMillis;
+        this.maxOpenMillis = maxOpenMillis;
+        this.openMillis = baseOpenMillis;
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() < openUntil) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+            logger.info("Circuit breaker {} is half-open, allowing a trial call", name);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    /**
+     * Runs a call that {@link #tryAcquire} let through and records its outcome. Exceptions
+     * count as failures unless {@code harmless} accepts them, and errors always do, so a
+     * half-open trial is given back whatever the call throws.
+     */
+    public <T> T record(Supplier<T> call, Predicate<RuntimeException> harmless) {
+        boolean success = false;
+        try {
+            T result = call.get();
+            success = true;
+            return result;
+        } catch (RuntimeException e) {
+            success = harmless.test(e);
+            throw e;
+        } finally {
+            if (success) {
+                onSuccess();
+            } else {
+                onFailure();
+            }
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            close();
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open(Math.min(openMillis * 2, maxOpenMillis));
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (windowCount >= minimumCalls && getFailureRate() >= failureRateThreshold) {
+                open(baseOpenMillis);
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return windowCount == 0 ? 0 : (double) failureCount / windowCount;
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowIndex]) {
+                failureCount--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            failureCount++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void open(long millis) {
+        state = State.OPEN;
+        openMillis = millis;
+        openUntil = System.currentTimeMillis() + millis;
+        trialInFlight = false;
+        logger.warn("Circuit breaker {} opened for {} ms (failure rate {})", name, millis, getFailureRate());
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        openMillis = baseOpenMillis;
+        trialInFlight = false;
+        windowIndex = 0;
+        windowCount = 0;
+        failureCount = 0;
+        logger.info("Circuit breaker {} closed", name);
+    }
+}
@@ -1,21 +1,19 @@
 package com.javatechie.service;
 
-import org.springframework.beans.factory.annotation.Value;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 @Service
 public class FlightApiService {
 
-    @Value("${flight.APIKEY}")
-    private String APIKEY;
-    @Value("${flight.APIURL}")
-    private String APIURL;
-
+    @Autowired
+    private FlightResponseCache flightResponseCache;
 
     public String getFlightInfo(String flightNumber){
-        String apiUrl=String.format(APIURL,APIKEY,flightNumber);
-        return new RestTemplate().getForObject(apiUrl, String.class);
+        byte[] response=flightResponseCache.get(flightNumber);
+        return response==null ? null : new String(response, StandardCharsets.UTF_8);
     }
 
 }
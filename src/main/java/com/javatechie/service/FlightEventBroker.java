@@ -0,0 +1,208 @@
+package com.javatechie.service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javatechie.model.FlightEvent;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Fans committed flight changes out to Server-Sent Events clients, one topic per flight number.
+ * Events reach it through the {@link FlightEventRelay}, so clients on any instance see them.
+ * Connections are held by the servlet container's async support, not by a thread each. Every
+ * connection has a small bounded buffer that drops its oldest event when a slow client falls
+ * behind, and buffers are drained by a shared sender pool. Idle connections get a periodic
+ * heartbeat comment so proxies keep them open and dead clients are noticed.
+ */
+@Component
+public class FlightEventBroker {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightEventBroker.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${flight.stream.maxConnections:50000}")
+    private int maxConnections;
+    @Value("${flight.stream.bufferSize:16}")
+    private int bufferSize;
+    @Value("${flight.stream.timeoutMillis:1800000}")
+    private long timeoutMillis;
+    @Value("${flight.stream.senderThreads:4}")
+    private int senderThreads;
+
+    private final Map<String, Set<Connection>> topics = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final Set<ResponseBodyEmitter.DataWithMediaType> heartbeat = SseEmitter.event().comment("heartbeat").build();
+    private ExecutorService senders;
+
+    @PostConstruct
+    public void start() {
+        senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "flight-event-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        topics.values().forEach(connections -> connections.forEach(connection -> connection.emitter.complete()));
+        senders.shutdown();
+    }
+
+    /**
+     * Opens a stream for one flight, or returns null when the connection limit is reached.
+     */
+    public SseEmitter subscribe(String flightNumber) {
+        if (connectionCount.incrementAndGet() > maxConnections) {
+            connectionCount.decrementAndGet();
+            return null;
+        }
+        String topic = normalize(flightNumber);
+        Connection connection = new Connection(topic, new SseEmitter(timeoutMillis));
+        connection.emitter.onCompletion(() -> remove(connection));
+        connection.emitter.onTimeout(() -> remove(connection));
+        connection.emitter.onError(e -> remove(connection));
+        // Added inside compute, so it cannot land in a set that remove() just dropped from the map
+        topics.compute(topic, (k, connections) -> {
+            connections = connections != null ? connections : ConcurrentHashMap.newKeySet();
+            if (!connection.closed.get()) {
+                connections.add(connection);
+            }
+            return connections.isEmpty() ? null : connections;
+        });
+        connection.offer(heartbeat);
+        return connection.emitter;
+    }
+
+    public void publish(FlightEvent event) {
+        Set<Connection> connections = topics.get(normalize(event.flightNumber()));
+        if (connections == null || connections.isEmpty()) {
+            return;
+        }
+        Set<ResponseBodyEmitter.DataWithMediaType> payload;
+        try {
+            payload = SseEmitter.event()
+                    .name(event.type())
+                    .id(String.valueOf(event.version()))
+                    .data(objectMapper.writeValueAsString(event), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing event for flight number {}: {}", event.flightNumber(), e.getMessage());
+            return;
+        }
+        connections.forEach(connection -> connection.offer(payload));
+    }
+
+    @Scheduled(fixedDelayString = "${flight.stream.heartbeatMillis:15000}")
+    public void sendHeartbeats() {
+        topics.values().forEach(connections -> connections.forEach(connection -> connection.offer(heartbeat)));
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    private void remove(Connection connection) {
+        if (!connection.closed.compareAndSet(false, true)) {
+            return;
+        }
+        connectionCount.decrementAndGet();
+        topics.computeIfPresent(connection.topic, (topic, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+    }
+
+    private String normalize(String flightNumber) {
+        return flightNumber == null ? "" : flightNumber.trim().toUpperCase();
+    }
+
+    private final class Connection {
+        private final String topic;
+        private final SseEmitter emitter;
+        private final ArrayDeque<Set<ResponseBodyEmitter.DataWithMediaType>> buffer = new ArrayDeque<>();
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        private Connection(String topic, SseEmitter emitter) {
+            this.topic = topic;
+            this.emitter = emitter;
+        }
+
+        private void offer(Set<ResponseBodyEmitter.DataWithMediaType> payload) {
+            if (closed.get()) {
+                return;
+            }
+            synchronized (buffer) {
+                if (payload == heartbeat && !buffer.isEmpty()) {
+                    return; // Pending events keep the connection alive already
+                }
+                if (buffer.size() >= bufferSize) {
+                    buffer.pollFirst();
+                    droppedEvents.incrementAndGet();
+                }
+                buffer.addLast(payload);
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private Set<ResponseBodyEmitter.DataWithMediaType> poll() {
+            synchronized (buffer) {
+                return buffer.pollFirst();
+            }
+        }
+
+        private void drain() {
+            try {
+                Set<ResponseBodyEmitter.DataWithMediaType> payload;
+                while (!closed.get() && (payload = poll()) != null) {
+                    emitter.send(payload);
+                }
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("Closing event stream for flight number {}: {}", topic, e.getMessage());
+                remove(this);
+                emitter.completeWithError(e);
+            } finally {
+                draining.set(false);
+            }
+            boolean pending;
+            synchronized (buffer) {
+                pending = !buffer.isEmpty();
+            }
+            if (pending && !closed.get() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.javatechie.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.javatechie.model.FlightEvent;
+
+/**
+ * Tails the {@code flight_event_log} table and hands new events to the local
+ * {@link FlightEventBroker}, so a stream client sees every flight whichever instance polls it.
+ * Ids are handed out before commit, so a lower id can become visible after a higher one; ids
+ * skipped over are looked up again for {@code flight.stream.gapMillis} before they are given
+ * up as rolled back. While no client is connected the relay only moves its position forward.
+ */
+@Component
+public class FlightEventRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightEventRelay.class);
+    private static final int MAX_GAPS = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private FlightEventBroker flightEventBroker;
+
+    @Value("${flight.stream.relayBatchSize:500}")
+    private int batchSize;
+    @Value("${flight.stream.gapMillis:60000}")
+    private long gapMillis;
+    @Value("${flight.stream.retentionMinutes:60}")
+    private long retentionMinutes;
+
+    private long lastSeenId = -1;
+    private final Map<Long, Long> gaps = new HashMap<>();
+
+    private record LoggedEvent(long id, FlightEvent event) {
+    }
+
+    @Scheduled(fixedDelayString = "${flight.stream.relayMillis:1000}")
+    public void relay() {
+        try {
+            relay(System.currentTimeMillis());
+        } catch (Exception e) {
+            logger.error("Error relaying flight events: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${flight.stream.cleanupMillis:600000}")
+    public void cleanup() {
+        try {
+            jdbcTemplate.update("delete from flight_event_log where occurred_at < ?", LocalDateTime.now().minusMinutes(retentionMinutes));
+        } catch (Exception e) {
+            logger.error("Error deleting old flight events: {}", e.getMessage());
+        }
+    }
+
+    synchronized void relay(long nowMillis) {
+        if (lastSeenId < 0 || flightEventBroker.getConnectionCount() == 0) {
+            lastSeenId = Math.max(lastSeenId, latestId());
+            gaps.clear();
+            return;
+        }
+        if (!gaps.isEmpty()) {
+            List<Long> ids = new ArrayList<>(gaps.keySet());
+            String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+            for (LoggedEvent logged : jdbcTemplate.query("select * from flight_event_log where id in (" + placeholders + ")",
+                    this::mapRow, ids.toArray())) {
+                gaps.remove(logged.id());
+                flightEventBroker.publish(logged.event());
+            }
+            gaps.values().removeIf(since -> nowMillis - since > gapMillis);
+        }
+        List<LoggedEvent> events;
+        do {
+            events = jdbcTemplate.query("select * from flight_event_log where id > ? order by id limit ?",
+                    this::mapRow, lastSeenId, batchSize);
+            for (LoggedEvent logged : events) {
+                for (long id = lastSeenId + 1; id < logged.id() && gaps.size() < MAX_GAPS; id++) {
+                    gaps.put(id, nowMillis);
+                }
+                lastSeenId = logged.id();
+                flightEventBroker.publish(logged.event());
+            }
+        } while (events.size() == batchSize);
+    }
+
+    private long latestId() {
+        Long id = jdbcTemplate.queryForObject("select max(id) from flight_event_log", Long.class);
+        return id == null ? 0 : id;
+    }
+
+    private LoggedEvent mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new LoggedEvent(rs.getLong("id"), new FlightEvent(
+                rs.getString("type"),
+                rs.getString("flight_number"),
+                toLocalDateTime(rs.getTimestamp("scheduled_time")),
+                toLocalDateTime(rs.getTimestamp("estimated_time")),
+                rs.getString("gate"),
+                rs.getString("terminal"),
+                rs.getObject("delay", Long.class),
+                rs.getObject("version", Long.class),
+                toLocalDateTime(rs.getTimestamp("occurred_at"))));
+    }
+
+    private LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -0,0 +1,308 @@
+package com.javatechie.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.javatechie.model.Flight;
+import com.javatechie.model.FlightDailyStats;
+import com.javatechie.repository.FlightDailyStatsRepository;
+
+/**
+ * Keeps the delay history of each flight number. Every committed status change is appended to
+ * {@code flight_status_history}, and the {@code flight_daily_stats} row for the flight number
+ * and scheduled day is updated in the same transaction, so reading a flight's statistics only
+ * touches its last {@code flight.history.windowDays} day rows. A day row is also started the
+ * first time a flight is seen on that day, so days without changes count as on time. History
+ * is written after the flight updates commit, in a transaction of its own, so a failure here
+ * never rolls back flight state or notifications; what could not be written is kept for the
+ * next flush.
+ */
+@Service
+public class FlightHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightHistoryService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private FlightDailyStatsRepository flightDailyStatsRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${flight.history.windowDays:30}")
+    private int windowDays;
+    @Value("${flight.history.onTimeMinutes:15}")
+    private long onTimeMinutes;
+
+    /**
+     * A committed change, or the first sighting of a flight on a day when {@code observation}.
+     */
+    record StatusChange(Flight flight, Long delay, String gate, String terminal, boolean gateChanged, boolean cancelled,
+                        boolean observation) {
+    }
+
+    public record FlightStats(String flightNumber, LocalDate from, LocalDate to, int days, double onTimeRate,
+                              double meanDelay, long p90Delay, long maxDelay, int gateChanges, int cancellations) {
+    }
+
+    private static final String INSERT_DAY_SQL = "insert into flight_daily_stats (flight_number, service_day, last_delay, max_delay, "
+            + "status_changes, gate_changes, cancelled, updated_at) select ?, ?, ?, ?, 0, 0, ?, ? from (select 1 as one) seed "
+            + "where not exists (select 1 from flight_daily_stats where flight_number = ? and service_day = ?)";
+
+    private final Set<String> startedDays = ConcurrentHashMap.newKeySet();
+    private final Map<String, StatusChange> pendingObservations = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedDeque<StatusChange> pendingChanges = new ConcurrentLinkedDeque<>();
+    private volatile LocalDate startedDaysPruned = LocalDate.MIN;
+
+    /**
+     * Queues a day row for the flight if none was started on its scheduled day yet. Written with
+     * the next flush. Responses list several days of the same flight number, so sightings of
+     * another day's departure are ignored.
+     */
+    public void observe(Flight flight, Flight currentData) {
+        LocalDate day = serviceDay(flight);
+        if (day == null || flight.getFlightNumber() == null) {
+            return;
+        }
+        if (currentData.getScheduledTime() != null && !currentData.getScheduledTime().toLocalDate().equals(day)) {
+            return;
+        }
+        String key = key(flight.getFlightNumber(), day);
+        if (!startedDays.contains(key)) {
+            pendingObservations.putIfAbsent(key, new StatusChange(flight, currentData.getDelay(), currentData.getGate(),
+                    currentData.getTerminal(), false, false, true));
+        }
+    }
+
+    /**
+     * Queues status changes whose flight updates have committed. Written with the next flush.
+     */
+    void recordChanges(List<StatusChange> changes) {
+        pendingChanges.addAll(changes);
+    }
+
+    public boolean hasPending() {
+        return !pendingObservations.isEmpty() || !pendingChanges.isEmpty();
+    }
+
+    /**
+     * Writes the queued first sightings and changes in one transaction. When it fails they are
+     * queued again, ahead of anything queued since, and the number of statements is 0.
+     */
+    public int flush(LocalDateTime now) {
+        List<StatusChange> observations = drainObservations();
+        List<StatusChange> changes = new ArrayList<>();
+        StatusChange change;
+        while ((change = pendingChanges.pollFirst()) != null) {
+            changes.add(change);
+        }
+        if (observations.isEmpty() && changes.isEmpty()) {
+            return 0;
+        }
+        try {
+            Integer statements = transactionTemplate.execute(status -> write(observations, changes, now));
+            committed(observations, changes);
+            return statements == null ? 0 : statements;
+        } catch (Exception e) {
+            logger.error("Error writing {} flight history entries: {}", observations.size() + changes.size(), e.getMessage());
+            observations.forEach(observation -> pendingObservations.putIfAbsent(
+                    key(observation.flight().getFlightNumber(), serviceDay(observation.flight())), observation));
+            for (int i = changes.size() - 1; i >= 0; i--) {
+                pendingChanges.addFirst(changes.get(i));
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Takes the queued first sightings; they are written by {@link #write} along with the changes.
+     */
+    List<StatusChange> drainObservations() {
+        List<StatusChange> observations = new ArrayList<>();
+        for (String key : pendingObservations.keySet()) {
+            StatusChange observation = pendingObservations.remove(key);
+            if (observation != null) {
+                observations.add(observation);
+            }
+        }
+        return observations;
+    }
+
+    /**
+     * Appends the changes to the history and folds observations and changes into the day rows.
+     * Runs inside the caller's transaction. Returns the number of statements sent.
+     */
+    int write(List<StatusChange> observations, List<StatusChange> changes, LocalDateTime now) {
+        changes = changes.stream().filter(change -> serviceDay(change.flight()) != null && change.flight().getFlightNumber() != null).toList();
+        int statements = 0;
+        if (!observations.isEmpty()) {
+            statements += insertMissingDays(observations, now);
+        }
+        if (!changes.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into flight_status_history (flight_id, flight_number, service_day, observed_at, delay, gate, "
+                    + "terminal, cancelled) values (?, ?, ?, ?, ?, ?, ?, ?)", changes, changes.size(), (ps, change) -> {
+                ps.setObject(1, change.flight().getId());
+                ps.setString(2, normalize(change.flight().getFlightNumber()));
+                ps.setObject(3, serviceDay(change.flight()));
+                ps.setTimestamp(4, Timestamp.valueOf(now));
+                ps.setObject(5, change.delay());
+                ps.setString(6, change.gate());
+                ps.setString(7, change.terminal());
+                ps.setBoolean(8, change.cancelled());
+            });
+            int[] counts = updateDays(changes, now);
+            statements += 2;
+            List<StatusChange> missing = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    missing.add(changes.get(i));
+                }
+            }
+            if (!missing.isEmpty()) {
+                statements += insertMissingDays(missing, now);
+                updateDays(missing, now);
+                statements++;
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * Marks the written days as started once the transaction that wrote them has committed.
+     */
+    void committed(List<StatusChange> observations, List<StatusChange> changes) {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(startedDaysPruned)) {
+            LocalDate oldest = today.minusDays(1);
+            startedDays.removeIf(key -> LocalDate.parse(key.substring(key.lastIndexOf('|') + 1)).isBefore(oldest));
+            startedDaysPruned = today;
+        }
+        observations.forEach(observation -> startedDays.add(key(observation.flight().getFlightNumber(), serviceDay(observation.flight()))));
+        changes.stream()
+                .filter(change -> serviceDay(change.flight()) != null && change.flight().getFlightNumber() != null)
+                .forEach(change -> startedDays.add(key(change.flight().getFlightNumber(), serviceDay(change.flight()))));
+    }
+
+    /**
+     * Rolls up the last {@code flight.history.windowDays} days of a flight number, or null when
+     * nothing was recorded for it.
+     */
+    public FlightStats getStats(String flightNumber) {
+        List<FlightDailyStats> days = flightDailyStatsRepository.findByFlightNumberOrderByServiceDayDesc(
+                flightNumber.trim().toUpperCase(), PageRequest.ofSize(windowDays));
+        if (days.isEmpty()) {
+            return null;
+        }
+        long[] delays = new long[days.size()];
+        long delaySum = 0;
+        long maxDelay = 0;
+        int onTime = 0;
+        int gateChanges = 0;
+        int cancellations = 0;
+        for (int i = 0; i < days.size(); i++) {
+            FlightDailyStats day = days.get(i);
+            delays[i] = day.getLastDelay();
+            delaySum += day.getLastDelay();
+            maxDelay = Math.max(maxDelay, day.getMaxDelay());
+            gateChanges += day.getGateChanges();
+            if (day.isCancelled()) {
+                cancellations++;
+            } else if (day.getLastDelay() <= onTimeMinutes) {
+                onTime++;
+            }
+        }
+        Arrays.sort(delays);
+        return new FlightStats(days.get(0).getFlightNumber(), days.get(days.size() - 1).getServiceDay(), days.get(0).getServiceDay(),
+                days.size(), (double) onTime / days.size(), (double) delaySum / days.size(),
+                delays[(int) Math.ceil(0.9 * delays.length) - 1], maxDelay, gateChanges, cancellations);
+    }
+
+    private int[] updateDays(List<StatusChange> changes, LocalDateTime now) {
+        return jdbcTemplate.batchUpdate("update flight_daily_stats set last_delay = ?, max_delay = greatest(max_delay, ?), "
+                + "status_changes = status_changes + 1, gate_changes = gate_changes + ?, cancelled = ?, updated_at = ? "
+                + "where flight_number = ? and service_day = ?", changes, changes.size(), (ps, change) -> {
+            long delay = delay(change);
+            ps.setLong(1, delay);
+            ps.setLong(2, delay);
+            ps.setInt(3, change.gateChanged() ? 1 : 0);
+            ps.setBoolean(4, change.cancelled());
+            ps.setTimestamp(5, Timestamp.valueOf(now));
+            ps.setString(6, normalize(change.flight().getFlightNumber()));
+            ps.setObject(7, serviceDay(change.flight()));
+        })[0];
+    }
+
+    /**
+     * Starts the day rows that do not exist yet. When another instance starts one of them
+     * concurrently the batch fails as a whole, so the rows are then inserted one at a time and
+     * only the ones already present are skipped.
+     */
+    private int insertMissingDays(List<StatusChange> changes, LocalDateTime now) {
+        Map<String, StatusChange> byDay = new HashMap<>();
+        changes.forEach(change -> byDay.putIfAbsent(key(change.flight().getFlightNumber(), serviceDay(change.flight())), change));
+        try {
+            jdbcTemplate.batchUpdate(INSERT_DAY_SQL, byDay.values(), byDay.size(), (ps, change) -> {
+                Object[] args = dayArgs(change, now);
+                for (int i = 0; i < args.length; i++) {
+                    ps.setObject(i + 1, args[i]);
+                }
+            });
+            return 1;
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Daily stats rows were created concurrently, inserting one at a time: {}", e.getMessage());
+        }
+        for (StatusChange change : byDay.values()) {
+            try {
+                jdbcTemplate.update(INSERT_DAY_SQL, dayArgs(change, now));
+            } catch (DataIntegrityViolationException e) {
+                logger.debug("Daily stats row for flight {} was created concurrently", change.flight().getFlightNumber());
+            }
+        }
+        return 1 + byDay.size();
+    }
+
+    private Object[] dayArgs(StatusChange change, LocalDateTime now) {
+        String flightNumber = normalize(change.flight().getFlightNumber());
+        LocalDate day = serviceDay(change.flight());
+        long delay = change.observation() ? delay(change) : 0;
+        return new Object[] {flightNumber, day, delay, delay, false, Timestamp.valueOf(now), flightNumber, day};
+    }
+
+    private long delay(StatusChange change) {
+        if (change.delay() != null) {
+            return change.delay();
+        }
+        return change.flight().getDelay() == null ? 0 : change.flight().getDelay();
+    }
+
+    private LocalDate serviceDay(Flight flight) {
+        return flight.getScheduledTime() == null ? null : flight.getScheduledTime().toLocalDate();
+    }
+
+    private String key(String flightNumber, LocalDate day) {
+        return normalize(flightNumber) + "|" + day;
+    }
+
+    private String normalize(String flightNumber) {
+        return flightNumber.trim().toUpperCase();
+    }
+}
@@ -0,0 +1,236 @@
+package com.javatechie.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.javatechie.model.Flight;
+import com.javatechie.model.PollCheckpoint;
+
+/**
+ * Keeps a next-poll deadline per tracked flight. Intervals shrink as departure approaches
+ * and back off while successive polls come back unchanged; departed and cancelled flights
+ * are dropped. When the API quota cannot cover every due flight, {@link #prioritize} ranks
+ * them by how close departure is, how many people are subscribed and how often the flight
+ * has changed recently. Polls are checkpointed so a restart can {@link #resume} where it left off.
+ */
+@Component
+public class FlightPollScheduler {
+
+    @Value("${flight.polling.minIntervalSeconds:60}")
+    private long minIntervalSeconds;
+    @Value("${flight.polling.maxIntervalSeconds:3600}")
+    private long maxIntervalSeconds;
+    @Value("${flight.polling.proximityDivisor:12}")
+    private long proximityDivisor;
+    @Value("${flight.polling.maxBackoffSteps:3}")
+    private int maxBackoffSteps;
+    @Value("${flight.polling.warmupJitter:true}")
+    private boolean warmupJitter;
+
+    private final Map<Long, PollEntry> entries = new HashMap<>();
+    private final PriorityQueue<PollEntry> queue = new PriorityQueue<>(Comparator.comparing(PollEntry::getNextPollAt));
+    private final Set<Long> polledSinceCheckpoint = new HashSet<>();
+
+    public void track(Flight flight, LocalDateTime now) {
+        track(flight, now, 0);
+    }
+
+    public synchronized void track(Flight flight, LocalDateTime now, long subscribers) {
+        PollEntry entry = entries.get(flight.getId());
+        if (entry == null) {
+            entry = new PollEntry(flight.getId(), flight.getScheduledTime(), now);
+            entries.put(entry.flightId, entry);
+        } else {
+            entry.scheduledTime = flight.getScheduledTime();
+        }
+        entry.subscribers = subscribers;
+        enqueue(entry); // Also brings back a flight taken by a cycle that failed before rescheduling it
+    }
+
+    /**
+     * Tracks a flight taken over at startup or from another instance. A flight with a
+     * checkpoint keeps its backoff and is next due one interval after its last poll. Flights
+     * without one, or already overdue, get their first poll at a random point within their
+     * interval instead of all at once, unless {@code flight.polling.warmupJitter} is off, in
+     * which case they are due now.
+     */
+    public synchronized void resume(Flight flight, LocalDateTime now, long subscribers, PollCheckpoint checkpoint) {
+        if (entries.containsKey(flight.getId())) {
+            track(flight, now, subscribers);
+            return;
+        }
+        PollEntry entry = new PollEntry(flight.getId(), flight.getScheduledTime(), now);
+        entry.subscribers = subscribers;
+        if (entry.scheduledTime != null && entry.scheduledTime.isAfter(now)) {
+            if (checkpoint != null && checkpoint.getLastPolledAt() != null) {
+                entry.unchangedCount = checkpoint.getUnchangedCount();
+                entry.lastPolledAt = checkpoint.getLastPolledAt();
+                entry.nextPollAt = checkpoint.getLastPolledAt().plus(nextInterval(entry, now));
+            }
+            if (!entry.nextPollAt.isAfter(now) && warmupJitter) {
+                long intervalMillis = nextInterval(entry, now).toMillis();
+                entry.nextPollAt = now.plus(Duration.ofMillis(ThreadLocalRandom.current().nextLong(Math.max(1, intervalMillis))));
+            }
+        }
+        entries.put(entry.flightId, entry);
+        enqueue(entry);
+    }
+
+    /**
+     * Checkpoints of the tracked flights polled since the last call.
+     */
+    public synchronized List<PollCheckpoint> takeCheckpoints() {
+        List<PollCheckpoint> checkpoints = new ArrayList<>(polledSinceCheckpoint.size());
+        for (Long flightId : polledSinceCheckpoint) {
+            PollEntry entry = entries.get(flightId);
+            if (entry != null && entry.lastPolledAt != null) {
+                checkpoints.add(PollCheckpoint.builder()
+                        .flightId(flightId)
+                        .lastPolledAt(entry.lastPolledAt)
+                        .unchangedCount(entry.unchangedCount)
+                        .build());
+            }
+        }
+        polledSinceCheckpoint.clear();
+        return checkpoints;
+    }
+
+    public synchronized void retainOnly(Set<Long> flightIds) {
+        entries.keySet().retainAll(flightIds);
+        queue.removeIf(entry -> !flightIds.contains(entry.flightId));
+    }
+
+    public synchronized List<Long> takeDue(LocalDateTime now) {
+        List<Long> due = new ArrayList<>();
+        while (!queue.isEmpty() && !queue.peek().nextPollAt.isAfter(now)) {
+            PollEntry entry = queue.poll();
+            entry.queued = false;
+            if (entry.scheduledTime == null || !entry.scheduledTime.isAfter(now)) {
+                entries.remove(entry.flightId);
+            } else {
+                due.add(entry.flightId);
+            }
+        }
+        return due;
+    }
+
+    public synchronized void reschedule(Long flightId, PollOutcome outcome, LocalDateTime now) {
+        PollEntry entry = entries.get(flightId);
+        if (entry == null) {
+            return;
+        }
+        if (outcome == PollOutcome.CANCELLED || entry.scheduledTime == null || !entry.scheduledTime.isAfter(now)) {
+            entries.remove(flightId);
+            return;
+        }
+        if (outcome == PollOutcome.CHANGED) {
+            entry.unchangedCount = 0;
+            entry.volatility = entry.volatility / 2 + 0.5;
+        } else if (outcome == PollOutcome.UNCHANGED) {
+            entry.unchangedCount++;
+            entry.volatility = entry.volatility / 2;
+        }
+        entry.lastPolledAt = now;
+        polledSinceCheckpoint.add(flightId);
+        if (entry.queued) {
+            queue.remove(entry);
+            entry.queued = false;
+        }
+        entry.nextPollAt = now.plus(nextInterval(entry, now));
+        enqueue(entry);
+    }
+
+    /**
+     * Orders due flights from most to least valuable to poll now.
+     */
+    public synchronized List<Long> prioritize(Collection<Long> flightIds, LocalDateTime now) {
+        Map<Long, Double> scores = new HashMap<>();
+        for (Long flightId : flightIds) {
+            PollEntry entry = entries.get(flightId);
+            scores.put(flightId, entry == null || entry.scheduledTime == null ? 0 : priority(entry, now));
+        }
+        List<Long> ranked = new ArrayList<>(flightIds);
+        ranked.sort(Comparator.comparing(scores::get, Comparator.reverseOrder()));
+        return ranked;
+    }
+
+    /**
+     * Puts due flights that were not polled back in the queue, keeping their deadline so they
+     * compete again on the next tick. Flights already rescheduled are left alone, so a cycle can
+     * defer everything it took once it is done, whether or not it failed half-way.
+     */
+    public synchronized void defer(Collection<Long> flightIds) {
+        for (Long flightId : flightIds) {
+            PollEntry entry = entries.get(flightId);
+            if (entry != null) {
+                enqueue(entry);
+            }
+        }
+    }
+
+    public synchronized void remove(Collection<Long> flightIds) {
+        entries.keySet().removeAll(flightIds);
+        queue.removeIf(entry -> flightIds.contains(entry.flightId));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void enqueue(PollEntry entry) {
+        if (!entry.queued) {
+            queue.add(entry);
+            entry.queued = true;
+        }
+    }
+
+    Duration nextInterval(PollEntry entry, LocalDateTime now) {
+        long untilDeparture = Duration.between(now, entry.scheduledTime).toSeconds();
+        long interval = Math.max(minIntervalSeconds, untilDeparture / proximityDivisor);
+        interval <<= Math.min(entry.unchangedCount, maxBackoffSteps);
+        interval = Math.min(interval, Math.max(minIntervalSeconds, untilDeparture / 4));
+        return Duration.ofSeconds(Math.min(interval, maxIntervalSeconds));
+    }
+
+    /**
+     * Nearness to departure dominates; subscribers and recent volatility scale it up.
+     */
+    double priority(PollEntry entry, LocalDateTime now) {
+        double hoursToDeparture = Math.max(0, Duration.between(now, entry.scheduledTime).toMinutes()) / 60.0;
+        return (1 / (1 + hoursToDeparture)) * (1 + Math.log1p(entry.subscribers)) * (1 + entry.volatility);
+    }
+
+    static final class PollEntry {
+        private final Long flightId;
+        private LocalDateTime scheduledTime;
+        private LocalDateTime nextPollAt;
+        private LocalDateTime lastPolledAt;
+        private int unchangedCount;
+        private long subscribers;
+        private double volatility;
+        private boolean queued;
+
+        PollEntry(Long flightId, LocalDateTime scheduledTime, LocalDateTime nextPollAt) {
+            this.flightId = flightId;
+            this.scheduledTime = scheduledTime;
+            this.nextPollAt = nextPollAt;
+        }
+
+        LocalDateTime getNextPollAt() {
+            return nextPollAt;
+        }
+    }
+}
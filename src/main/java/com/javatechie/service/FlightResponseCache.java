@@ -0,0 +1,129 @@
+package com.javatechie.service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Per-flight aviationstack responses shared by /getFlightInfo and the poller. Concurrent
+ * misses for one flight share a single upstream request. Readers get stale-while-revalidate
+ * behaviour, while the poller asks for a response no older than the refresh window. Calls
+ * made for readers are reported to the quota manager as interactive.
+ */
+@Component
+public class FlightResponseCache {
+
+    @Autowired
+    private UpstreamClient upstreamClient;
+    @Autowired
+    private ApiQuotaManager apiQuotaManager;
+
+    @Value("${flight.APIKEY}")
+    private String APIKEY;
+    @Value("${flight.APIURL}")
+    private String APIURL;
+    @Value("${flight.cache.maxEntries:10000}")
+    private long maxEntries;
+    @Value("${flight.cache.refreshSeconds:30}")
+    private long refreshSeconds;
+    @Value("${flight.cache.expireSeconds:300}")
+    private long expireSeconds;
+
+    private ExecutorService refreshExecutor;
+    private LoadingCache<String, byte[]> cache;
+    private final Set<String> pollerRefreshes = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        refreshExecutor = Executors.newFixedThreadPool(4, runnable -> {
+            Thread thread = new Thread(runnable, "flight-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(expireSeconds))
+                .refreshAfterWrite(Duration.ofSeconds(refreshSeconds))
+                .executor(refreshExecutor)
+                .recordStats()
+                .build(this::load);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    public byte[] get(String flightNumber) {
+        return cache.get(normalize(flightNumber));
+    }
+
+    public byte[] getFresh(String flightNumber) {
+        String key = normalize(flightNumber);
+        if (isFresh(key)) {
+            byte[] cached = cache.getIfPresent(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        pollerRefreshes.add(key); // The load behind this refresh is not counted as interactive
+        try {
+            return cache.refresh(key).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            pollerRefreshes.remove(key);
+        }
+    }
+
+    /**
+     * Whether {@link #getFresh} can answer without an upstream call.
+     */
+    public boolean isFresh(String flightNumber) {
+        String key = normalize(flightNumber);
+        Optional<Duration> age = cache.policy().expireAfterWrite().flatMap(expiry -> expiry.ageOf(key));
+        return age.isPresent() && age.get().getSeconds() < refreshSeconds;
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long getSize() {
+        return cache.estimatedSize();
+    }
+
+    private byte[] load(String flightNumber) {
+        byte[] response = upstreamClient.getBytes(url(flightNumber));
+        if (!pollerRefreshes.contains(flightNumber)) {
+            apiQuotaManager.recordInteractiveCall();
+        }
+        return response;
+    }
+
+    private String url(String flightNumber) {
+        return String.format(APIURL, APIKEY, flightNumber);
+    }
+
+    private String normalize(String flightNumber) {
+        return flightNumber.trim().toUpperCase();
+    }
+}
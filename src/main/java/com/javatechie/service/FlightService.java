@@ -1,26 +1,32 @@
 package com.javatechie.service;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
 import com.javatechie.model.Flight;
-import com.javatechie.model.User;
+import com.javatechie.model.FlightObservation;
+import com.javatechie.model.PollCheckpoint;
 import com.javatechie.repository.FlightRepository;
+import com.javatechie.repository.SubscriptionRepository;
 import com.javatechie.repository.UserRepository;
 
 @Service
@@ -34,262 +40,508 @@ public class FlightService {
     private UserRepository userRepository;
     @Autowired
     private NotificationService notificationService;
+    @Autowired
+    private PollingEngine pollingEngine;
+    @Autowired
+    private UpstreamClient upstreamClient;
+    @Autowired
+    private FlightPollScheduler pollScheduler;
+    @Autowired
+    private AviationstackResponseParser responseParser;
+    @Autowired
+    private FlightResponseCache flightResponseCache;
+    @Autowired
+    private FlightStateWriter flightStateWriter;
+    @Autowired
+    private FlightSnapshotStore snapshotStore;
+    @Autowired
+    private PartitionLeaseManager partitionLeaseManager;
+    @Autowired
+    private ApiQuotaManager apiQuotaManager;
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+    @Autowired
+    private PipelineMetrics metrics;
+    @Autowired
+    private FlightHistoryService flightHistoryService;
+    @Autowired
+    private PollCheckpointStore pollCheckpointStore;
 
     @Value("${flight.APIKEY}")
     private String APIKEY;
-    @Value("${flight.APIURL}")
-    private String APIURL;
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
-
-    @Scheduled(fixedRate = 600000) // Check every 10 minutes
+    static final String CANCELLED = "cancelled";
+
+    @Value("${flight.AIRPORTURL}")
+    private String AIRPORTURL;
+    @Value("${flight.bulk.enabled:true}")
+    private boolean bulkEnabled;
+    @Value("${flight.bulk.minGroupSize:5}")
+    private int bulkMinGroupSize;
+    private static final int BULK_PAGE_LIMIT = 100;
+    private final AtomicInteger callsLeft = new AtomicInteger(Integer.MAX_VALUE);
+
+    @Value("${flight.polling.pageSize:500}")
+    private int pageSize;
+    @Value("${flight.polling.discoveryMillis:600000}")
+    private long discoveryMillis;
+    private long lastDiscoveryAt;
+    private long discoveredGeneration = -1;
+    private volatile boolean warmedUp;
+    private volatile int resumedFlights;
+
+    @Scheduled(fixedDelayString = "${flight.polling.tickMillis:30000}")
     public void checkFlightStatusPriority() {
-        try {
-            List<Flight> flights = flightRepository.findAll();
-            Set<Flight> filteredFlights = filterFlights(flights);
-            for (Flight flight : filteredFlights) {
+        pollingEngine.runCycle(() -> {
+            try {
+                LocalDateTime now = LocalDateTime.now();
+                if (!warmedUp && !partitionLeaseManager.hasRebalanced()) {
+                    partitionLeaseManager.heartbeat();
+                    if (!partitionLeaseManager.hasRebalanced()) {
+                        return; // Warm up once the leases are known, or every flight would be discovered twice
+                    }
+                }
+                long generation = partitionLeaseManager.getGeneration();
+                if (generation != discoveredGeneration || System.currentTimeMillis() - lastDiscoveryAt >= discoveryMillis) {
+                    long start = System.nanoTime();
+                    discoverDueFlights(now, generation != discoveredGeneration);
+                    metrics.record(PipelineMetrics.Stage.LOAD, start);
+                    lastDiscoveryAt = System.currentTimeMillis();
+                    discoveredGeneration = generation;
+                    if (!warmedUp) {
+                        warmedUp = true;
+                        logger.info("Polling warm-up finished: {} flights tracked, {} resumed from checkpoints",
+                                pollScheduler.size(), resumedFlights);
+                    }
+                }
+                long filterStart = System.nanoTime();
+                List<Long> taken = pollScheduler.takeDue(now);
                 try {
-                    processFlight(flight);
-                } catch (JsonProcessingException e) {
-                    logger.error("Error processing flight data for flight number {}: {}", flight.getFlightNumber(), e.getMessage());
+                    List<Long> dueIds = new ArrayList<>(taken);
+                    List<Long> released = dueIds.stream().filter(id -> !partitionLeaseManager.owns(id)).toList();
+                    if (!released.isEmpty()) {
+                        pollScheduler.remove(released);
+                        dueIds.removeIf(id -> !partitionLeaseManager.owns(id));
+                    }
+                    metrics.record(PipelineMetrics.Stage.FILTER, filterStart);
+                    List<Flight> due = new ArrayList<>(dueIds.size());
+                    for (int from = 0; from < dueIds.size(); from += pageSize) {
+                        long loadStart = System.nanoTime();
+                        due.addAll(loadFlights(dueIds.subList(from, Math.min(from + pageSize, dueIds.size()))));
+                        metrics.record(PipelineMetrics.Stage.LOAD, loadStart);
+                    }
+                    pollFlights(spendQuota(due, now)); // In one go, so bulk groups stay whole
+                } finally {
+                    pollScheduler.defer(taken); // Flights the cycle took but never rescheduled stay due
                 }
+                long saveStart = System.nanoTime();
+                metrics.flushed(flightStateWriter.flush());
+                metrics.record(PipelineMetrics.Stage.SAVE, saveStart);
+            } catch (Exception e) {
+                logger.error("Error retrieving or processing flights: {}", e.getMessage());
             }
-        } catch (Exception e) {
-            logger.error("Error retrieving or processing flights: {}", e.getMessage());
+        });
+    }
+
+    /**
+     * Loads the owned flights departing in the next 12 hours into the poll scheduler. Flights
+     * new to this instance, at startup or after a partition takeover, resume from their
+     * checkpoints so they are not all polled at once.
+     */
+    private void discoverDueFlights(LocalDateTime now, boolean resume) {
+        LocalDateTime until = now.plusHours(12);
+        Set<Integer> owned = partitionLeaseManager.getOwnedPartitions();
+        Set<Long> seen = new HashSet<>();
+        int resumed = 0;
+        long afterId = 0;
+        List<Flight> page;
+        do {
+            if (owned.isEmpty()) {
+                break; // No partition leased yet, or all of them moved to other instances
+            }
+            page = flightRepository.findDueFlights(now, until, partitionLeaseManager.getPartitions(), owned, afterId,
+                    PageRequest.ofSize(pageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            Map<Long, Long> subscribers = countSubscribers(page);
+            Map<Long, PollCheckpoint> checkpoints = resume ? pollCheckpointStore.load(page.stream().map(Flight::getId).toList()) : Map.of();
+            resumed += checkpoints.size();
+            for (Flight flight : page) {
+                long count = subscribers.getOrDefault(flight.getId(), 0L);
+                if (resume) {
+                    pollScheduler.resume(flight, now, count, checkpoints.get(flight.getId()));
+                } else {
+                    pollScheduler.track(flight, now, count);
+                }
+                snapshotStore.put(flight);
+                seen.add(flight.getId());
+            }
+            afterId = page.get(page.size() - 1).getId();
+        } while (page.size() == pageSize);
+        pollScheduler.retainOnly(seen);
+        snapshotStore.retainOnly(seen);
+        if (resume) {
+            resumedFlights = resumed;
         }
+        logger.info("Tracking {} flights for polling", pollScheduler.size());
     }
 
-    private Set<Flight> filterFlights(List<Flight> flights) {
-        return flights.stream().filter(flight ->
-                        flight.getScheduledTime().isBefore(flight.getEstimatedTime())
-                                && flight.getScheduledTime().isAfter(LocalDateTime.now())
-                                && flight.getScheduledTime().isBefore(LocalDateTime.now().plusHours(12)))
-                .collect(Collectors.toSet());
+    /**
+     * Whether the first discovery after startup has loaded the flights to poll.
+     */
+    public boolean isWarmedUp() {
+        return warmedUp;
     }
 
-    private void processFlight(Flight flight) throws JsonProcessingException {
-        String url = String.format(APIURL, APIKEY, flight.getFlightNumber().trim());
-        String response;
-        try {
-            response = new RestTemplate().getForObject(url, String.class);
-        } catch (RestClientException e) {
-            logger.error("Error making API request for flight number {}: {}", flight.getFlightNumber(), e.getMessage());
-            return; // Skip processing if API call fails
+    public int getTrackedFlights() {
+        return pollScheduler.size();
+    }
+
+    public int getResumedFlights() {
+        return resumedFlights;
+    }
+
+    private Map<Long, Long> countSubscribers(List<Flight> flights) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : subscriptionRepository.countByFlightIds(flights.stream().map(Flight::getId).toList())) {
+            counts.put((Long) row[0], (Long) row[1]);
         }
+        return counts;
+    }
 
-        logger.info("Response from API for flight number {}: {}", flight.getFlightNumber(), response);
+    /**
+     * Keeps the due flights the API quota can pay for this tick, most valuable first, and
+     * defers the rest to the next tick. Flights are costed the way {@link #pollFlights} will
+     * poll them: one call per departure board for an airport with a bulk group, one call per
+     * flight otherwise. The allowance also caps the calls actually made, since unmatched board
+     * flights and further board pages cost more than planned.
+     */
+    private List<Flight> spendQuota(List<Flight> due, LocalDateTime now) {
+        int allowance = apiQuotaManager.allowance(now);
+        callsLeft.set(allowance);
+        Map<String, Integer> groupSizes = new HashMap<>();
+        for (Flight flight : due) {
+            String airport = airportKey(flight);
+            if (airport != null) {
+                groupSizes.merge(airport, 1, Integer::sum);
+            }
+        }
+        Set<String> boards = new HashSet<>();
+        int planned = 0;
+        for (Flight flight : due) {
+            planned += plannedCalls(flight, groupSizes, boards);
+        }
+        if (planned <= allowance) {
+            apiQuotaManager.recordTick(allowance, 0);
+            return due;
+        }
+        Map<Long, Flight> byId = new HashMap<>();
+        due.forEach(flight -> byId.put(flight.getId(), flight));
+        List<Flight> kept = new ArrayList<>();
+        List<Long> deferred = new ArrayList<>();
+        boards.clear();
+        planned = 0;
+        for (Long flightId : pollScheduler.prioritize(byId.keySet(), now)) {
+            Flight flight = byId.get(flightId);
+            int calls = plannedCalls(flight, groupSizes, boards);
+            if (planned + calls > allowance) {
+                boards.remove(airportKey(flight)); // Its board is not paid for after all
+                deferred.add(flightId);
+            } else {
+                planned += calls;
+                kept.add(flight);
+            }
+        }
+        pollScheduler.defer(deferred);
+        apiQuotaManager.recordTick(allowance, deferred.size());
+        metrics.deferred(deferred.size());
+        logger.info("API quota allows {} calls this tick, deferring {} lower-priority flights", allowance, deferred.size());
+        return kept;
+    }
 
-        JsonNode jsonObject;
-        try {
-            jsonObject = new ObjectMapper().readTree(response);
-        } catch (JsonProcessingException e) {
-            logger.error("Error parsing JSON response for flight number {}: {}", flight.getFlightNumber(), e.getMessage());
-            return; // Skip processing if JSON parsing fails
+    /**
+     * Calls a flight adds to the plan: one for the first flight of a bulk group, which pays for
+     * the group's board, none for the rest of the group, one for any other flight.
+     */
+    private int plannedCalls(Flight flight, Map<String, Integer> groupSizes, Set<String> boards) {
+        String airport = airportKey(flight);
+        if (airport == null || groupSizes.get(airport) < bulkMinGroupSize) {
+            return 1;
         }
+        return boards.add(airport) ? 1 : 0;
+    }
 
-        JsonNode dataNode = jsonObject.get("data");
+    private String airportKey(Flight flight) {
+        return !bulkEnabled || flight.getDepartureAirport() == null ? null : flight.getDepartureAirport().trim().toUpperCase();
+    }
 
-        if (isNodeArray(dataNode)) {
-            for (JsonNode item : dataNode) {
-                try {
-                    processFlightData(flight, item);
-                } catch (Exception e) {
-                    logger.error("Error processing flight data item for flight number {}: {}", flight.getFlightNumber(), e.getMessage());
-                }
+    /**
+     * Takes one upstream call from this tick's allowance, or returns false once it is spent.
+     */
+    private boolean takeCall() {
+        return callsLeft.getAndUpdate(left -> left == Integer.MAX_VALUE ? left : Math.max(0, left - 1)) > 0;
+    }
+
+    /**
+     * Resolves due flights from the snapshot store, going to the database only for flights
+     * missing from it (evicted after a conflicting write, or tracked before the store was filled).
+     */
+    private List<Flight> loadFlights(List<Long> flightIds) {
+        List<Flight> flights = new ArrayList<>(flightIds.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long flightId : flightIds) {
+            Flight flight = snapshotStore.view(flightId);
+            if (flight != null) {
+                flights.add(flight);
+            } else {
+                missing.add(flightId);
             }
         }
+        if (!missing.isEmpty()) {
+            Set<Long> notFound = new HashSet<>(missing);
+            for (Flight flight : flightRepository.findAllById(missing)) {
+                snapshotStore.put(flight);
+                flights.add(flight);
+                notFound.remove(flight.getId());
+            }
+            pollScheduler.remove(notFound);
+        }
+        return flights;
     }
 
-    private void processFlightData(Flight flight, JsonNode item) {
-        try {
-            if (item.get("flight_status").asText().equalsIgnoreCase("cancelled")) {
-                notifyAboutTheCancellation(flight);
-                return;
+    private void pollFlights(List<Flight> flights) {
+        if (!bulkEnabled) {
+            pollingEngine.pollAll(flights, this::pollFlight);
+            return;
+        }
+        Map<String, List<Flight>> byAirport = new HashMap<>();
+        Queue<Flight> uncovered = new ConcurrentLinkedQueue<>();
+        for (Flight flight : flights) {
+            String airport = airportKey(flight);
+            if (airport == null) {
+                uncovered.add(flight);
+            } else {
+                byAirport.computeIfAbsent(airport, k -> new ArrayList<>()).add(flight);
             }
-            Flight currentData = extractFlightData(item, flight);
-            if (hasSignificantChanges(flight, currentData)) {
-                updateFlightData(flight, currentData);
-                notifyUsers(flight, currentData);
+        }
+        List<List<Flight>> groups = new ArrayList<>();
+        for (List<Flight> group : byAirport.values()) {
+            if (group.size() >= bulkMinGroupSize) {
+                groups.add(group);
+            } else {
+                uncovered.addAll(group);
             }
-        } catch (Exception e) {
-            logger.error("Error processing flight data: {}", e.getMessage());
         }
+        pollingEngine.pollAll(groups, group -> uncovered.addAll(pollAirport(group)));
+        pollingEngine.pollAll(uncovered, this::pollFlight);
     }
 
-    private void notifyAboutTheCancellation(Flight flight) {
-        List<User> users = flight.getUserList().stream().toList();
-        for (User user : users) {
+    /**
+     * Polls a group of flights leaving the same airport with paged departure-board queries.
+     * The board lists several days, so an item only covers a flight scheduled on the same day.
+     * Paging stops once every flight is matched, or once the remaining pages would cost more
+     * than polling the unmatched flights one by one, or once the tick's calls are spent.
+     * Returns the flights still unmatched.
+     */
+    private List<Flight> pollAirport(List<Flight> group) {
+        String airport = group.get(0).getDepartureAirport().trim();
+        Map<String, Flight> pending = new HashMap<>();
+        List<Flight> uncovered = new ArrayList<>();
+        for (Flight flight : group) {
+            if (pending.putIfAbsent(normalizeFlightNumber(flight.getFlightNumber()), flight) != null) {
+                uncovered.add(flight);
+            }
+        }
+        Map<Flight, PollOutcome> covered = new HashMap<>();
+        int offset = 0;
+        long total = Long.MAX_VALUE;
+        while (!pending.isEmpty() && offset < total) {
+            if (offset > 0 && (total - offset + BULK_PAGE_LIMIT - 1) / BULK_PAGE_LIMIT > pending.size() || !takeCall()) {
+                break;
+            }
             try {
-                String message = String.format("We regret to inform you that your flight has been canceled.\n\n" +
-                                "Flight Number: %s\n" +
-                                "Scheduled Time: %s\n" +
-                                "We apologize for any inconvenience this may cause. Please contact our support team for assistance with rebooking or further information.",
-                        flight.getFlightNumber(),
-                        flight.getScheduledTime());
-
-                notificationService.sendEmail(user.getEmail(), "Flight Cancellation Notification for Flight " + flight.getFlightNumber(), message);
-            } catch (Exception e) {
-                logger.error("Error sending cancellation notification to user {}: {}", user.getEmail(), e.getMessage());
+                byte[] response = upstreamClient.getBytes(String.format(AIRPORTURL, APIKEY, airport, BULK_PAGE_LIMIT, offset));
+                if (response == null) {
+                    break;
+                }
+                AviationstackResponseParser.Page page = parse(response);
+                if (page.data().isEmpty()) {
+                    break;
+                }
+                for (FlightObservation item : page.data()) {
+                    String flightNumber = normalizeFlightNumber(item.flightIata());
+                    Flight flight = pending.get(flightNumber);
+                    if (flight != null && sameDay(flight, item)) {
+                        pending.remove(flightNumber);
+                        covered.put(flight, processFlightData(flight, item));
+                    }
+                }
+                total = page.total();
+                offset += page.data().size();
+            } catch (RestClientException | IOException e) {
+                logger.error("Error fetching departures for airport {}: {}", airport, e.getMessage());
+                break;
             }
         }
+        LocalDateTime now = LocalDateTime.now();
+        covered.forEach((flight, outcome) -> {
+            pollScheduler.reschedule(flight.getId(), outcome, now);
+            metrics.outcome(outcome);
+        });
+        uncovered.addAll(pending.values());
+        return uncovered;
     }
 
-    private Flight extractFlightData(JsonNode item, Flight flight) {
-        Flight currentData = new Flight();
-
-        JsonNode flightNode = item.get("flight");
-        if (flightNode != null && flightNode.has("iata")) {
-            currentData.setFlightNumber(flightNode.get("iata").asText());
-        }
-
-        JsonNode departureNode = item.get("departure");
-        if (departureNode != null) {
-            setFlightTimes(currentData, departureNode);
-            setOptionalFields(currentData, departureNode, flight);
+    private AviationstackResponseParser.Page parse(byte[] response) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return responseParser.parse(response);
+        } finally {
+            metrics.record(PipelineMetrics.Stage.PARSE, start);
         }
-
-        return currentData;
     }
 
-    private void setFlightTimes(Flight currentData, JsonNode departureNode) {
-        try {
-            if (departureNode.has("scheduled")) {
-                String scheduledTimeStr = departureNode.get("scheduled").asText();
-                currentData.setScheduledTime(parseDateTime(scheduledTimeStr));
-            }
+    private boolean sameDay(Flight flight, FlightObservation item) {
+        return flight.getScheduledTime() == null
+                || item.scheduledTime() != null && item.scheduledTime().toLocalDate().equals(flight.getScheduledTime().toLocalDate());
+    }
 
-            if (departureNode.has("estimated")) {
-                String estimatedTimeStr = departureNode.get("estimated").asText();
-                currentData.setEstimatedTime(parseDateTime(estimatedTimeStr));
-            }
-        } catch (Exception e) {
-            logger.error("Error setting flight times from JSON: {}", e.getMessage());
-        }
+    private String normalizeFlightNumber(String flightNumber) {
+        return flightNumber == null ? "" : flightNumber.trim().toUpperCase();
     }
 
-    private LocalDateTime parseDateTime(String dateTimeStr) {
+    private void pollFlight(Flight flight) {
+        if (!flightResponseCache.isFresh(flight.getFlightNumber()) && !takeCall()) {
+            apiQuotaManager.recordDeferred(1);
+            metrics.deferred(1);
+            return; // Out of calls for this tick; the cycle puts the flight back in the queue
+        }
+        PollOutcome outcome = PollOutcome.FAILED;
         try {
-            return LocalDateTime.parse(dateTimeStr.split("\\+")[0], DATE_FORMATTER);
-        } catch (Exception e) {
-            logger.error("Error parsing date time string '{}': {}", dateTimeStr, e.getMessage());
-            return LocalDateTime.now(); // Fallback to current time
+            outcome = processFlight(flight);
+        } finally {
+            pollScheduler.reschedule(flight.getId(), outcome, LocalDateTime.now());
+            metrics.outcome(outcome);
         }
     }
 
-    private void setOptionalFields(Flight currentData, JsonNode departureNode, Flight flight) {
+    private PollOutcome processFlight(Flight flight) {
+        byte[] response;
         try {
-            if (departureNode.has("gate") && !departureNode.get("gate").asText().equalsIgnoreCase("null")) {
-                currentData.setGate(departureNode.get("gate").asText());
-            } else {
-                currentData.setGate(flight.getGate());
-            }
+            response = flightResponseCache.getFresh(flight.getFlightNumber());
+        } catch (RestClientException e) {
+            logger.error("Error making API request for flight number {}: {}", flight.getFlightNumber(), e.getMessage());
+            return PollOutcome.FAILED; // Skip processing if API call fails
+        }
+        if (response == null) {
+            return PollOutcome.FAILED;
+        }
 
-            if (departureNode.has("terminal") && !departureNode.get("terminal").asText().equalsIgnoreCase("null")) {
-                currentData.setTerminal(departureNode.get("terminal").asText());
-            } else {
-                currentData.setTerminal(flight.getTerminal());
-            }
+        logger.debug("Response from API for flight number {}: {} bytes", flight.getFlightNumber(), response.length);
 
-            if (departureNode.has("delay") && !departureNode.get("delay").asText().equalsIgnoreCase("null")) {
-                currentData.setDelay(Long.parseLong(departureNode.get("delay").asText()));
-            } else {
-                currentData.setDelay(0L);
-            }
-        } catch (Exception e) {
-            logger.error("Error setting optional fields from JSON: {}", e.getMessage());
+        long fingerprint = FlightSnapshotStore.fingerprint(response);
+        if (snapshotStore.isSameResponse(flight.getId(), fingerprint)) {
+            metrics.unchangedResponse();
+            return PollOutcome.UNCHANGED; // Same bytes as the last processed response
         }
-    }
 
-    private boolean hasSignificantChanges(Flight flight, Flight currentData) {
+        AviationstackResponseParser.Page page;
         try {
-            if (!currentData.getScheduledTime().isEqual(flight.getScheduledTime())) {
-                return false;
-            }
-            return Math.abs(flight.getDelay() - currentData.getDelay()) > 10
-                    || !currentData.getGate().equalsIgnoreCase(flight.getGate())
-                    || !currentData.getTerminal().equalsIgnoreCase(flight.getTerminal());
-        } catch (Exception e) {
-            logger.error("Error checking for significant changes: {}", e.getMessage());
-            return false;
+            page = parse(response);
+        } catch (IOException e) {
+            logger.error("Error parsing JSON response for flight number {}: {}", flight.getFlightNumber(), e.getMessage());
+            return PollOutcome.FAILED; // Skip processing if JSON parsing fails
+        }
+
+        PollOutcome outcome = PollOutcome.UNCHANGED;
+        boolean failed = false;
+        for (FlightObservation item : page.data()) {
+            PollOutcome itemOutcome = processFlightData(flight, item);
+            failed |= itemOutcome == PollOutcome.FAILED;
+            outcome = outcome.merge(itemOutcome);
+        }
+        if (failed) {
+            // Not fingerprinted, so the same response is processed again instead of skipped as unchanged
+            return outcome == PollOutcome.UNCHANGED ? PollOutcome.FAILED : outcome;
+        }
+        if (!flightStateWriter.attachResponseFingerprint(flight.getId(), fingerprint)) {
+            snapshotStore.recordResponse(flight.getId(), fingerprint);
         }
+        return outcome;
     }
 
-    private void updateFlightData(Flight flight, Flight currentData) {
+    private PollOutcome processFlightData(Flight flight, FlightObservation item) {
+        long start = System.nanoTime();
         try {
-            flight.setGate(currentData.getGate());
-            flight.setDelay(currentData.getDelay());
-            flight.setTerminal(currentData.getTerminal());
-            flight.setEstimatedTime(currentData.getEstimatedTime());
-            flight.setScheduledTime(currentData.getScheduledTime());
-            flightRepository.save(flight);
+            learnDepartureAirport(flight, item);
+            if (CANCELLED.equalsIgnoreCase(item.flightStatus())) {
+                flightStateWriter.stageCancellation(flight);
+                return PollOutcome.CANCELLED;
+            }
+            Flight currentData = extractFlightData(item, flight);
+            if (hasSignificantChanges(flight, currentData)) {
+                flightStateWriter.stageChange(flight, currentData);
+                return PollOutcome.CHANGED;
+            }
+            flightHistoryService.observe(flight, currentData);
+            return PollOutcome.UNCHANGED;
         } catch (Exception e) {
-            logger.error("Error updating flight data in database: {}", e.getMessage());
+            logger.error("Error processing flight data for flight number {}: {}", flight.getFlightNumber(), e.getMessage());
+            return PollOutcome.FAILED;
+        } finally {
+            metrics.record(PipelineMetrics.Stage.DIFF, start);
         }
     }
 
-    private void notifyUsers(Flight flight, Flight currentData) {
-        List<User> allUsersWithFlight = flight.getUserList().stream().toList();
-        for (User user : allUsersWithFlight) {
-            try {
-                String message = buildNotificationMessage(flight, currentData);
-                notificationService.sendEmail(user.getEmail(), "Notification: Flight Details for " + currentData.getFlightNumber(), message);
-                // notificationService.sendSMS(user.getPhoneNumber(), message);
-            } catch (Exception e) {
-                logger.error("Error sending notification to user {}: {}", user.getEmail(), e.getMessage());
-            }
+    private void learnDepartureAirport(Flight flight, FlightObservation item) {
+        if (flight.getDepartureAirport() == null && item.departureIata() != null && !item.departureIata().isBlank()) {
+            flightStateWriter.stageDepartureAirport(flight, item.departureIata());
         }
     }
 
-    private String buildNotificationMessage(Flight flight, Flight currentData) {
-        return String.format("We regret to inform you that your flight boarding details have changed.\n\n" +
-                        "Flight Number: %s\n" +
-                        "Scheduled Time: %s\n" +
-                        "Estimated Time: %s\n" +
-                        "Gate No: %s\n" +
-                        "Terminal: %s\n\n" +
-                        "We apologize for any inconvenience this may cause. Please contact our support team for further information.",
-                flight.getFlightNumber(),
-                currentData.getScheduledTime(),
-                currentData.getEstimatedTime(),
-                currentData.getGate(),
-                currentData.getTerminal());
+    static Flight extractFlightData(FlightObservation item, Flight flight) {
+        Flight currentData = new Flight();
+        currentData.setFlightNumber(item.flightIata());
+        currentData.setScheduledTime(item.scheduledTime());
+        currentData.setEstimatedTime(item.estimatedTime());
+        currentData.setGate(item.gate() != null ? item.gate() : flight.getGate());
+        currentData.setTerminal(item.terminal() != null ? item.terminal() : flight.getTerminal());
+        currentData.setDelay(item.delay() != null ? item.delay() : 0L);
+        return currentData;
     }
 
-    public Flight findAllFlightByNumber(Flight flight) {
+    static boolean hasSignificantChanges(Flight flight, Flight currentData) {
         try {
-            return flightRepository.findByFlightNumber(flight.getFlightNumber());
+            if (!currentData.getScheduledTime().isEqual(flight.getScheduledTime())) {
+                return false;
+            }
+            return Math.abs(flight.getDelay() - currentData.getDelay()) > 10
+                    || !currentData.getGate().equalsIgnoreCase(flight.getGate())
+                    || !currentData.getTerminal().equalsIgnoreCase(flight.getTerminal());
         } catch (Exception e) {
-            logger.error("Error finding flight by number {}: {}", flight.getFlightNumber(), e.getMessage());
-            return null;
+            logger.error("Error checking for significant changes: {}", e.getMessage());
+            return false;
         }
     }
 
-    public void firstTimeEmailConfirmation(Flight data) {
-        User user = data.getUserList().stream().findFirst().orElse(null);
-        if (user != null) {
-            try {
-                String message = String.format("Subscription confirmation for flight: %s.\nCurrent status: Scheduled: %s,\nEstimated: %s\n, Gate No: %s\n, Terminal: %s \n\nThank you for choosing us",
-                        data.getFlightNumber(),
-                        data.getScheduledTime(),
-                        data.getEstimatedTime(),
-                        data.getGate(),
-                        data.getTerminal());
-                notificationService.sendEmail(user.getEmail(), "Subscription Confirmation for Flight " + data.getFlightNumber(), message);
-            } catch (Exception e) {
-                logger.error("Error sending subscription confirmation email to user {}: {}", user.getEmail(), e.getMessage());
-            }
+    /**
+     * Returns the flight with this number, creating it from the request data when it is new. A
+     * concurrent insert of the same flight trips the unique flight number constraint, after
+     * which the row the other request created is read back.
+     */
+    public Flight findOrCreateFlight(Flight data) {
+        Flight existing = flightRepository.findByFlightNumber(data.getFlightNumber());
+        if (existing != null) {
+            return existing;
         }
-    }
-
-    public Flight saveFlightData(Flight data) {
+        data.setId(null);
+        data.setVersion(null);
         try {
-            return flightRepository.save(data);
-        } catch (Exception e) {
-            logger.error("Error saving flight data to database: {}", e.getMessage());
-            return null;
+            return flightRepository.saveAndFlush(data);
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Flight {} was created concurrently: {}", data.getFlightNumber(), e.getMessage());
+            return flightRepository.findByFlightNumber(data.getFlightNumber());
         }
     }
 
-    private boolean isNodeArray(JsonNode dataNode) {
-        return dataNode != null && dataNode.isArray();
-    }
 }
@@ -0,0 +1,411 @@
+package com.javatechie.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.javatechie.model.Flight;
+
+/**
+ * Last known state of every tracked flight, kept in parallel primitive arrays behind an
+ * open-addressing index on flight id. Short strings (flight number, gate, terminal, airport)
+ * are packed into a long; the rare longer value spills into a side map. Alongside the state it
+ * keeps a fingerprint of the last fully processed upstream response, so byte-identical
+ * responses can be skipped before parsing. The store is filled from the database during
+ * discovery and updated after each successful flush.
+ */
+@Component
+public class FlightSnapshotStore {
+
+    private static final long EMPTY = 0L;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final int NO_DELAY = Integer.MIN_VALUE;
+    private static final long NO_TEXT = 0L;
+    private static final long OVERFLOW_TEXT = -1L;
+    private static final int MAX_PACKED_LENGTH = 7;
+    private static final byte STATUS_NONE = 0;
+    private static final byte STATUS_CANCELLED = 1;
+    private static final byte STATUS_OTHER = 2;
+    private static final int FLIGHT_NUMBER = 0;
+    private static final int GATE = 1;
+    private static final int TERMINAL = 2;
+    private static final int AIRPORT = 3;
+    private static final int STATUS = 4;
+    private static final double MAX_LOAD = 0.75;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> overflow = new HashMap<>();
+
+    private long[] keys;
+    private long[] versions;
+    private long[] scheduledTimes;
+    private long[] estimatedTimes;
+    private int[] delays;
+    private long[] flightNumbers;
+    private long[] gates;
+    private long[] terminals;
+    private long[] airports;
+    private byte[] statuses;
+    private long[] responseHashes;
+    private int size;
+
+    public FlightSnapshotStore() {
+        allocate(1024);
+    }
+
+    public void put(Flight flight) {
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(flight.getId());
+            boolean sameState = slot >= 0 && sameState(slot, flight);
+            if (slot < 0) {
+                if (size + 1 > keys.length * MAX_LOAD) {
+                    resize(keys.length * 2);
+                }
+                slot = insertSlot(flight.getId());
+                size++;
+            }
+            write(slot, flight);
+            if (!sameState) {
+                responseHashes[slot] = 0L;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Flight view(Long flightId) {
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(flightId);
+            return slot < 0 ? null : read(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isSameResponse(Long flightId, long fingerprint) {
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(flightId);
+            return slot >= 0 && fingerprint != 0L && responseHashes[slot] == fingerprint;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void recordResponse(Long flightId, long fingerprint) {
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(flightId);
+            if (slot >= 0) {
+                responseHashes[slot] = fingerprint;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long flightId) {
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(flightId);
+            if (slot < 0) {
+                return;
+            }
+            for (int column = FLIGHT_NUMBER; column <= STATUS; column++) {
+                overflow.remove(overflowKey(flightId, column));
+            }
+            deleteSlot(slot);
+            size--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops every flight that is no longer tracked for polling.
+     */
+    public void retainOnly(Set<Long> flightIds) {
+        lock.writeLock().lock();
+        try {
+            List<Long> stale = new ArrayList<>();
+            for (long key : keys) {
+                if (key != EMPTY && !flightIds.contains(key)) {
+                    stale.add(key);
+                }
+            }
+            for (Long flightId : stale) {
+                for (int column = FLIGHT_NUMBER; column <= STATUS; column++) {
+                    overflow.remove(overflowKey(flightId, column));
+                }
+                deleteSlot(findSlot(flightId));
+                size--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 64-bit fingerprint of a response body, read eight bytes at a time.
+     */
+    public static long fingerprint(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        long hash = 0x9E3779B97F4A7C15L ^ bytes.length;
+        int i = 0;
+        for (; i + 8 <= bytes.length; i += 8) {
+            hash = (hash ^ mix(buffer.getLong(i))) * 0xBF58476D1CE4E5B9L;
+        }
+        long tail = 0;
+        for (int shift = 0; i < bytes.length; i++, shift += 8) {
+            tail |= (bytes[i] & 0xFFL) << shift;
+        }
+        hash = mix(hash ^ mix(tail));
+        return hash == 0L ? 1L : hash;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    private void write(int slot, Flight flight) {
+        long id = flight.getId();
+        versions[slot] = version(flight);
+        scheduledTimes[slot] = encodeTime(flight.getScheduledTime());
+        estimatedTimes[slot] = encodeTime(flight.getEstimatedTime());
+        delays[slot] = flight.getDelay() == null ? NO_DELAY : flight.getDelay().intValue();
+        flightNumbers[slot] = encodeText(id, FLIGHT_NUMBER, flight.getFlightNumber());
+        gates[slot] = encodeText(id, GATE, flight.getGate());
+        terminals[slot] = encodeText(id, TERMINAL, flight.getTerminal());
+        airports[slot] = encodeText(id, AIRPORT, flight.getDepartureAirport());
+        statuses[slot] = encodeStatus(id, flight.getFlightStatus());
+    }
+
+    private Flight read(int slot) {
+        long id = keys[slot];
+        return Flight.builder()
+                .id(id)
+                .version(versions[slot])
+                .flightNumber(decodeText(id, FLIGHT_NUMBER, flightNumbers[slot]))
+                .scheduledTime(decodeTime(scheduledTimes[slot]))
+                .estimatedTime(decodeTime(estimatedTimes[slot]))
+                .delay(delays[slot] == NO_DELAY ? null : (long) delays[slot])
+                .gate(decodeText(id, GATE, gates[slot]))
+                .terminal(decodeText(id, TERMINAL, terminals[slot]))
+                .departureAirport(decodeText(id, AIRPORT, airports[slot]))
+                .flightStatus(decodeStatus(id, statuses[slot]))
+                .build();
+    }
+
+    private boolean sameState(int slot, Flight flight) {
+        Flight current = read(slot);
+        return Objects.equals(current.getScheduledTime(), truncate(flight.getScheduledTime()))
+                && Objects.equals(current.getEstimatedTime(), truncate(flight.getEstimatedTime()))
+                && Objects.equals(current.getDelay(), flight.getDelay())
+                && Objects.equals(current.getGate(), flight.getGate())
+                && Objects.equals(current.getTerminal(), flight.getTerminal())
+                && Objects.equals(current.getDepartureAirport(), flight.getDepartureAirport())
+                && Objects.equals(current.getFlightStatus(), flight.getFlightStatus());
+    }
+
+    private long version(Flight flight) {
+        return flight.getVersion() == null ? 0L : flight.getVersion();
+    }
+
+    private LocalDateTime truncate(LocalDateTime time) {
+        return time == null ? null : time.withNano(0);
+    }
+
+    private long encodeTime(LocalDateTime time) {
+        return time == null ? NO_TIME : time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private LocalDateTime decodeTime(long encoded) {
+        return encoded == NO_TIME ? null : LocalDateTime.ofEpochSecond(encoded, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Packs up to seven ASCII characters with their length in the top byte; zero means null.
+     */
+    private long encodeText(long id, int column, String text) {
+        overflow.remove(overflowKey(id, column));
+        if (text == null) {
+            return NO_TEXT;
+        }
+        if (text.length() > MAX_PACKED_LENGTH || !StandardCharsets.US_ASCII.newEncoder().canEncode(text)) {
+            overflow.put(overflowKey(id, column), text);
+            return OVERFLOW_TEXT;
+        }
+        long packed = (long) (text.length() + 1) << 56;
+        for (int i = 0; i < text.length(); i++) {
+            packed |= (long) (text.charAt(i) & 0x7F) << (i * 8);
+        }
+        return packed;
+    }
+
+    private String decodeText(long id, int column, long packed) {
+        if (packed == NO_TEXT) {
+            return null;
+        }
+        if (packed == OVERFLOW_TEXT) {
+            return overflow.get(overflowKey(id, column));
+        }
+        int length = (int) (packed >>> 56) - 1;
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ((packed >>> (i * 8)) & 0x7F);
+        }
+        return new String(chars);
+    }
+
+    private byte encodeStatus(long id, String status) {
+        overflow.remove(overflowKey(id, STATUS));
+        if (status == null) {
+            return STATUS_NONE;
+        }
+        if (FlightService.CANCELLED.equals(status)) {
+            return STATUS_CANCELLED;
+        }
+        overflow.put(overflowKey(id, STATUS), status);
+        return STATUS_OTHER;
+    }
+
+    private String decodeStatus(long id, byte status) {
+        return switch (status) {
+            case STATUS_NONE -> null;
+            case STATUS_CANCELLED -> FlightService.CANCELLED;
+            default -> overflow.get(overflowKey(id, STATUS));
+        };
+    }
+
+    private long overflowKey(long id, int column) {
+        return id * 8 + column;
+    }
+
+    private int indexFor(long key, int capacity) {
+        return (int) Long.remainderUnsigned(mix(key), capacity);
+    }
+
+    private int findSlot(Long key) {
+        if (key == null) {
+            return -1;
+        }
+        int slot = indexFor(key, keys.length);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) % keys.length;
+        }
+        return -1;
+    }
+
+    private int insertSlot(long key) {
+        int slot = indexFor(key, keys.length);
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) % keys.length;
+        }
+        keys[slot] = key;
+        return slot;
+    }
+
+    private void deleteSlot(int slot) {
+        int hole = slot;
+        int next = (hole + 1) % keys.length;
+        while (keys[next] != EMPTY) {
+            int home = indexFor(keys[next], keys.length);
+            boolean movable = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (movable) {
+                copySlot(next, hole);
+                hole = next;
+            }
+            next = (next + 1) % keys.length;
+        }
+        keys[hole] = EMPTY;
+    }
+
+    private void copySlot(int from, int to) {
+        keys[to] = keys[from];
+        versions[to] = versions[from];
+        scheduledTimes[to] = scheduledTimes[from];
+        estimatedTimes[to] = estimatedTimes[from];
+        delays[to] = delays[from];
+        flightNumbers[to] = flightNumbers[from];
+        gates[to] = gates[from];
+        terminals[to] = terminals[from];
+        airports[to] = airports[from];
+        statuses[to] = statuses[from];
+        responseHashes[to] = responseHashes[from];
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        versions = new long[capacity];
+        scheduledTimes = new long[capacity];
+        estimatedTimes = new long[capacity];
+        delays = new int[capacity];
+        flightNumbers = new long[capacity];
+        gates = new long[capacity];
+        terminals = new long[capacity];
+        airports = new long[capacity];
+        statuses = new byte[capacity];
+        responseHashes = new long[capacity];
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldVersions = versions;
+        long[] oldScheduledTimes = scheduledTimes;
+        long[] oldEstimatedTimes = estimatedTimes;
+        int[] oldDelays = delays;
+        long[] oldFlightNumbers = flightNumbers;
+        long[] oldGates = gates;
+        long[] oldTerminals = terminals;
+        long[] oldAirports = airports;
+        byte[] oldStatuses = statuses;
+        long[] oldResponseHashes = responseHashes;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) {
+                continue;
+            }
+            int slot = insertSlot(oldKeys[i]);
+            versions[slot] = oldVersions[i];
+            scheduledTimes[slot] = oldScheduledTimes[i];
+            estimatedTimes[slot] = oldEstimatedTimes[i];
+            delays[slot] = oldDelays[i];
+            flightNumbers[slot] = oldFlightNumbers[i];
+            gates[slot] = oldGates[i];
+            terminals[slot] = oldTerminals[i];
+            airports[slot] = oldAirports[i];
+            statuses[slot] = oldStatuses[i];
+            responseHashes[slot] = oldResponseHashes[i];
+        }
+    }
+}
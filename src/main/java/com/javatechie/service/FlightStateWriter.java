@@ -0,0 +1,305 @@
+package com.javatechie.service;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.javatechie.model.Flight;
+import com.javatechie.model.FlightEvent;
+
+/**
+ * Collects flight state changes observed during a polling cycle and writes them in one
+ * transaction at the end of the cycle. Updates are grouped by the set of columns that changed
+ * and sent as JDBC batches, guarded by the row version so a concurrent writer is never
+ * overwritten. Notifications for an update are queued in the same transaction, and only when
+ * the update was applied. Committed updates are copied into the {@link FlightSnapshotStore};
+ * conflicting ones are evicted from it so the next poll reloads them. Applied changes and
+ * cancellations are also appended to {@code flight_event_log} in the same transaction, from
+ * where the {@link FlightEventRelay} of every instance streams them. Once the transaction has
+ * committed they are handed to the delay history, which is written separately.
+ */
+@Component
+public class FlightStateWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightStateWriter.class);
+
+    enum FlightColumn {
+        GATE("gate"),
+        TERMINAL("terminal"),
+        DELAY("delay"),
+        ESTIMATED_TIME("estimated_time"),
+        SCHEDULED_TIME("scheduled_time"),
+        FLIGHT_STATUS("flight_status"),
+        DEPARTURE_AIRPORT("departure_airport");
+
+        private final String column;
+
+        FlightColumn(String column) {
+            this.column = column;
+        }
+    }
+
+    private static final class PendingUpdate {
+        private final Flight flight;
+        private final Map<FlightColumn, Object> values = new EnumMap<>(FlightColumn.class);
+        private Flight change;
+        private boolean cancelled;
+        private long responseFingerprint;
+
+        private PendingUpdate(Flight flight) {
+            this.flight = flight;
+        }
+    }
+
+    public record FlushResult(int staged, int applied, int conflicts, int statements, long millis) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private NotificationService notificationService;
+    @Autowired
+    private FlightSnapshotStore snapshotStore;
+    @Autowired
+    private FlightHistoryService flightHistoryService;
+
+    private final AtomicReference<Map<Long, PendingUpdate>> pending = new AtomicReference<>(new ConcurrentHashMap<>());
+    private volatile FlushResult lastFlush = new FlushResult(0, 0, 0, 0, 0);
+
+    public void stageChange(Flight flight, Flight currentData) {
+        pending.get().compute(flight.getId(), (id, update) -> {
+            update = update != null ? update : new PendingUpdate(flight);
+            stage(update, FlightColumn.GATE, flight.getGate(), currentData.getGate());
+            stage(update, FlightColumn.TERMINAL, flight.getTerminal(), currentData.getTerminal());
+            stage(update, FlightColumn.DELAY, flight.getDelay(), currentData.getDelay());
+            stage(update, FlightColumn.ESTIMATED_TIME, flight.getEstimatedTime(), currentData.getEstimatedTime());
+            stage(update, FlightColumn.SCHEDULED_TIME, flight.getScheduledTime(), currentData.getScheduledTime());
+            update.change = currentData;
+            return update;
+        });
+    }
+
+    public void stageCancellation(Flight flight) {
+        pending.get().compute(flight.getId(), (id, update) -> {
+            update = update != null ? update : new PendingUpdate(flight);
+            stage(update, FlightColumn.FLIGHT_STATUS, flight.getFlightStatus(), FlightService.CANCELLED);
+            update.cancelled = true;
+            return update;
+        });
+    }
+
+    public void stageDepartureAirport(Flight flight, String departureAirport) {
+        pending.get().compute(flight.getId(), (id, update) -> {
+            update = update != null ? update : new PendingUpdate(flight);
+            stage(update, FlightColumn.DEPARTURE_AIRPORT, flight.getDepartureAirport(), departureAirport);
+            return update;
+        });
+    }
+
+    /**
+     * Remembers the fingerprint of the response behind a staged update, so the snapshot only
+     * records it once the update is committed. Returns false when nothing is staged for the flight.
+     */
+    public boolean attachResponseFingerprint(Long flightId, long fingerprint) {
+        return pending.get().computeIfPresent(flightId, (id, update) -> {
+            update.responseFingerprint = fingerprint;
+            return update;
+        }) != null;
+    }
+
+    public FlushResult flush() {
+        Map<Long, PendingUpdate> updates = pending.getAndSet(new ConcurrentHashMap<>());
+        if (updates.isEmpty() && !flightHistoryService.hasPending()) {
+            lastFlush = new FlushResult(0, 0, 0, 0, 0);
+            return lastFlush;
+        }
+        long start = System.nanoTime();
+        int[] counters = new int[3];
+        List<PendingUpdate> applied = new ArrayList<>();
+        List<PendingUpdate> conflicted = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                applied.clear();
+                conflicted.clear();
+                write(updates.values(), applied, conflicted, counters);
+            });
+            applied.forEach(this::updateSnapshot);
+            conflicted.forEach(update -> snapshotStore.remove(update.flight.getId()));
+            flightHistoryService.recordChanges(applied.stream()
+                    .filter(update -> update.cancelled || update.change != null)
+                    .map(this::statusChange)
+                    .toList());
+        } catch (Exception e) {
+            logger.error("Error flushing {} flight updates: {}", updates.size(), e.getMessage());
+            counters[0] = 0;
+        }
+        counters[2] += flightHistoryService.flush(LocalDateTime.now());
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        lastFlush = new FlushResult(updates.size(), counters[0], counters[1], counters[2], millis);
+        logger.info("Flushed {} flight updates in {} statements ({} conflicts) in {} ms",
+                lastFlush.applied(), lastFlush.statements(), lastFlush.conflicts(), millis);
+        return lastFlush;
+    }
+
+    public FlushResult getLastFlush() {
+        return lastFlush;
+    }
+
+    private void write(Iterable<PendingUpdate> updates, List<PendingUpdate> applied, List<PendingUpdate> conflicted, int[] counters) {
+        Map<EnumSet<FlightColumn>, List<PendingUpdate>> groups = new HashMap<>();
+        for (PendingUpdate update : updates) {
+            if (!update.values.isEmpty()) {
+                groups.computeIfAbsent(EnumSet.copyOf(update.values.keySet()), columns -> new ArrayList<>()).add(update);
+            }
+        }
+        for (Map.Entry<EnumSet<FlightColumn>, List<PendingUpdate>> group : groups.entrySet()) {
+            List<PendingUpdate> rows = group.getValue();
+            List<Object[]> args = new ArrayList<>(rows.size());
+            for (PendingUpdate update : rows) {
+                Object[] row = new Object[group.getKey().size() + 2];
+                int i = 0;
+                for (FlightColumn column : group.getKey()) {
+                    row[i++] = update.values.get(column);
+                }
+                row[i++] = update.flight.getId();
+                row[i] = update.flight.getVersion() == null ? 0L : update.flight.getVersion();
+                args.add(row);
+            }
+            int[] counts = jdbcTemplate.batchUpdate(updateSql(group.getKey()), args);
+            counters[2]++;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                    applied.add(rows.get(i));
+                } else {
+                    counters[1]++;
+                    conflicted.add(rows.get(i));
+                    logger.warn("Flight {} was modified concurrently, skipping update", rows.get(i).flight.getFlightNumber());
+                }
+            }
+        }
+        for (PendingUpdate update : updates) {
+            if (update.values.isEmpty() && (update.change != null || update.cancelled)) {
+                applied.add(update);
+            }
+        }
+        List<FlightEvent> events = new ArrayList<>();
+        for (PendingUpdate update : applied) {
+            if (update.cancelled) {
+                notificationService.enqueueFlightCancellation(update.flight);
+            } else if (update.change != null) {
+                notificationService.enqueueFlightChange(update.flight, update.change, committedVersion(update));
+            }
+            if (update.cancelled || update.change != null) {
+                events.add(event(update, committed(update)));
+            }
+        }
+        if (!events.isEmpty()) {
+            logEvents(events);
+            counters[2]++;
+        }
+        counters[0] = applied.size();
+    }
+
+    private void logEvents(List<FlightEvent> events) {
+        jdbcTemplate.batchUpdate("insert into flight_event_log (type, flight_number, scheduled_time, estimated_time, gate, terminal, "
+                + "delay, version, occurred_at) values (?, ?, ?, ?, ?, ?, ?, ?, ?)", events, events.size(), (ps, event) -> {
+                    ps.setString(1, event.type());
+                    ps.setString(2, event.flightNumber());
+                    ps.setTimestamp(3, event.scheduledTime() == null ? null : Timestamp.valueOf(event.scheduledTime()));
+                    ps.setTimestamp(4, event.estimatedTime() == null ? null : Timestamp.valueOf(event.estimatedTime()));
+                    ps.setString(5, event.gate());
+                    ps.setString(6, event.terminal());
+                    ps.setObject(7, event.delay());
+                    ps.setObject(8, event.version());
+                    ps.setTimestamp(9, Timestamp.valueOf(event.occurredAt()));
+                });
+    }
+
+    private FlightHistoryService.StatusChange statusChange(PendingUpdate update) {
+        if (update.cancelled) {
+            return new FlightHistoryService.StatusChange(update.flight, null, update.flight.getGate(), update.flight.getTerminal(),
+                    false, true, false);
+        }
+        return new FlightHistoryService.StatusChange(update.flight, update.change.getDelay(), update.change.getGate(),
+                update.change.getTerminal(), update.values.containsKey(FlightColumn.GATE), false, false);
+    }
+
+    private long committedVersion(PendingUpdate update) {
+        long version = update.flight.getVersion() == null ? 0L : update.flight.getVersion();
+        return update.values.isEmpty() ? version : version + 1;
+    }
+
+    private void updateSnapshot(PendingUpdate update) {
+        snapshotStore.put(committed(update));
+        if (update.responseFingerprint != 0L) {
+            snapshotStore.recordResponse(update.flight.getId(), update.responseFingerprint);
+        }
+    }
+
+    private Flight committed(PendingUpdate update) {
+        Flight flight = update.flight;
+        Flight committed = Flight.builder()
+                .id(flight.getId())
+                .flightNumber(flight.getFlightNumber())
+                .scheduledTime(flight.getScheduledTime())
+                .estimatedTime(flight.getEstimatedTime())
+                .delay(flight.getDelay())
+                .gate(flight.getGate())
+                .terminal(flight.getTerminal())
+                .departureAirport(flight.getDepartureAirport())
+                .flightStatus(flight.getFlightStatus())
+                .version(committedVersion(update))
+                .build();
+        update.values.forEach((column, value) -> {
+            switch (column) {
+                case GATE -> committed.setGate((String) value);
+                case TERMINAL -> committed.setTerminal((String) value);
+                case DELAY -> committed.setDelay((Long) value);
+                case ESTIMATED_TIME -> committed.setEstimatedTime((LocalDateTime) value);
+                case SCHEDULED_TIME -> committed.setScheduledTime((LocalDateTime) value);
+                case FLIGHT_STATUS -> committed.setFlightStatus((String) value);
+                case DEPARTURE_AIRPORT -> committed.setDepartureAirport((String) value);
+            }
+        });
+        return committed;
+    }
+
+    private FlightEvent event(PendingUpdate update, Flight committed) {
+        return new FlightEvent(update.cancelled ? FlightEvent.CANCELLATION : FlightEvent.CHANGE,
+                committed.getFlightNumber(), committed.getScheduledTime(), committed.getEstimatedTime(),
+                committed.getGate(), committed.getTerminal(), committed.getDelay(), committed.getVersion(),
+                LocalDateTime.now());
+    }
+
+    private String updateSql(EnumSet<FlightColumn> columns) {
+        StringBuilder sql = new StringBuilder("update flight set ");
+        for (FlightColumn column : columns) {
+            sql.append(column.column).append(" = ?, ");
+        }
+        return sql.append("version = version + 1 where id = ? and version = ?").toString();
+    }
+
+    private void stage(PendingUpdate update, FlightColumn column, Object current, Object next) {
+        if (!Objects.equals(current, next)) {
+            update.values.put(column, next);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.javatechie.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A message pattern with {@code {name}} placeholders, split into literal and placeholder
+ * segments once so rendering is a single pass over a StringBuilder.
+ */
+public final class MessageTemplate {
+
+    private final String[] literals;
+    private final String[] keys;
+    private final int sizeHint;
+
+    private MessageTemplate(String[] literals, String[] keys, int sizeHint) {
+        this.literals = literals;
+        this.keys = keys;
+        this.sizeHint = sizeHint;
+    }
+
+    public static MessageTemplate compile(String pattern) {
+        List<String> literals = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = pattern.indexOf('{', position);
+            int close = open < 0 ? -1 : pattern.indexOf('}', open);
+            if (close < 0) {
+                literals.add(pattern.substring(position));
+                break;
+            }
+            literals.add(pattern.substring(position, open));
+            keys.add(pattern.substring(open + 1, close));
+            position = close + 1;
+        }
+        return new MessageTemplate(literals.toArray(new String[0]), keys.toArray(new String[0]), pattern.length() + 64);
+    }
+
+    public String render(Map<String, ?> values) {
+        StringBuilder out = new StringBuilder(sizeHint);
+        for (int i = 0; i < keys.length; i++) {
+            out.append(literals[i]).append(values.get(keys[i]));
+        }
+        return out.append(literals[keys.length]).toString();
+    }
+}
@@ -0,0 +1,197 @@
+package com.javatechie.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.javatechie.model.NotificationOutbox;
+import com.javatechie.model.OutboxStatus;
+import com.javatechie.repository.NotificationOutboxRepository;
+import com.javatechie.repository.SubscriberContact;
+import com.javatechie.repository.SubscriptionRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Drains the notification outbox in batches. Entries are claimed before sending so a pending
+ * entry can still absorb digest merges, then fanned out to their recipients in Bcc chunks over a
+ * bounded number of SMTP connections. Failed recipients are retried with exponential backoff and
+ * dead-lettered after {@code flight.notification.maxAttempts}.
+ */
+@Component
+public class NotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    @Autowired
+    private NotificationOutboxRepository notificationOutboxRepository;
+    @Autowired
+    private NotificationService notificationService;
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Value("${flight.notification.batchSize:100}")
+    private int batchSize;
+    @Value("${flight.notification.senderConcurrency:4}")
+    private int senderConcurrency;
+    @Value("${flight.notification.maxAttempts:5}")
+    private int maxAttempts;
+    @Value("${flight.notification.backoffSeconds:60}")
+    private long backoffSeconds;
+    @Value("${flight.notification.maxRecipientsPerMessage:50}")
+    private int maxRecipientsPerMessage;
+    @Value("${flight.notification.claimTimeoutSeconds:600}")
+    private long claimTimeoutSeconds;
+
+    private ExecutorService senders;
+
+    @PostConstruct
+    public void start() {
+        senders = Executors.newFixedThreadPool(senderConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "notification-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        senders.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${flight.notification.dispatchMillis:5000}")
+    public void dispatch() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            notificationOutboxRepository.releaseStaleClaims(now.minusSeconds(claimTimeoutSeconds),
+                    OutboxStatus.PENDING, OutboxStatus.SENDING);
+            List<Long> dueIds;
+            do {
+                now = LocalDateTime.now();
+                dueIds = notificationOutboxRepository.findDueIds(OutboxStatus.PENDING, now, PageRequest.ofSize(batchSize));
+                if (dueIds.isEmpty()) {
+                    break;
+                }
+                String claimToken = UUID.randomUUID().toString();
+                notificationOutboxRepository.claim(dueIds, claimToken, now, OutboxStatus.PENDING, OutboxStatus.SENDING);
+                List<NotificationOutbox> batch = notificationOutboxRepository.findByClaimTokenAndStatus(claimToken, OutboxStatus.SENDING);
+                if (!batch.isEmpty()) {
+                    send(batch);
+                }
+            } while (dueIds.size() == batchSize);
+        } catch (Exception e) {
+            logger.error("Error dispatching notifications: {}", e.getMessage());
+        }
+    }
+
+    private void send(List<NotificationOutbox> batch) {
+        List<NotificationService.OutgoingEmail> emails = new ArrayList<>();
+        for (NotificationOutbox entry : batch) {
+            List<String> recipients = resolveRecipients(entry);
+            for (int from = 0; from < recipients.size(); from += maxRecipientsPerMessage) {
+                emails.add(new NotificationService.OutgoingEmail(entry,
+                        recipients.subList(from, Math.min(from + maxRecipientsPerMessage, recipients.size()))));
+            }
+        }
+
+        Map<NotificationService.OutgoingEmail, Exception> failures = new ConcurrentHashMap<>();
+        List<List<NotificationService.OutgoingEmail>> chunks = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        int chunkSize = Math.max(1, (emails.size() + senderConcurrency - 1) / senderConcurrency);
+        for (int from = 0; from < emails.size(); from += chunkSize) {
+            List<NotificationService.OutgoingEmail> chunk = emails.subList(from, Math.min(from + chunkSize, emails.size()));
+            chunks.add(chunk);
+            futures.add(senders.submit(() -> {
+                long start = System.nanoTime();
+                failures.putAll(notificationService.sendBatch(chunk));
+                metrics.record(PipelineMetrics.Stage.SEND, start);
+            }));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (ExecutionException e) {
+                // Nothing says which emails of the chunk went out, so all of them are retried
+                Exception cause = e.getCause() instanceof Exception exception ? exception : e;
+                logger.error("Error sending notification batch: {}", cause.getMessage());
+                chunks.get(i).forEach(email -> failures.put(email, cause));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        Map<NotificationOutbox, List<String>> failedRecipients = new IdentityHashMap<>();
+        Map<NotificationOutbox, Exception> lastErrors = new IdentityHashMap<>();
+        failures.forEach((email, cause) -> {
+            failedRecipients.computeIfAbsent(email.entry(), entry -> new ArrayList<>()).addAll(email.recipients());
+            lastErrors.put(email.entry(), cause);
+        });
+
+        LocalDateTime now = LocalDateTime.now();
+        int dead = 0;
+        for (NotificationOutbox entry : batch) {
+            entry.setClaimToken(null);
+            List<String> failed = failedRecipients.get(entry);
+            if (failed == null) {
+                entry.setStatus(OutboxStatus.SENT);
+                entry.setSentAt(now);
+                continue;
+            }
+            Exception failure = lastErrors.get(entry);
+            entry.setRecipients(String.join(",", failed));
+            entry.setAttempts(entry.getAttempts() + 1);
+            entry.setLastError(truncate(failure.getMessage()));
+            if (entry.getAttempts() >= maxAttempts) {
+                entry.setStatus(OutboxStatus.DEAD);
+                dead++;
+                logger.error("Giving up on notification {} to {} recipients after {} attempts: {}",
+                        entry.getId(), failed.size(), entry.getAttempts(), failure.getMessage());
+            } else {
+                entry.setStatus(OutboxStatus.PENDING);
+                entry.setNextAttemptAt(now.plusSeconds(backoffSeconds << (entry.getAttempts() - 1)));
+            }
+        }
+        notificationOutboxRepository.saveAll(batch);
+        metrics.emails(emails.size() - failures.size(), failures.size(), dead);
+        logger.info("Dispatched {} notifications as {} emails, {} emails failed", batch.size(), emails.size(), failures.size());
+    }
+
+    private List<String> resolveRecipients(NotificationOutbox entry) {
+        if (entry.getRecipients() != null && !entry.getRecipients().isBlank()) {
+            return List.of(entry.getRecipients().split(","));
+        }
+        if (entry.getFlightId() == null) {
+            return List.of();
+        }
+        return subscriptionRepository.findSubscriberContacts(entry.getFlightId()).stream()
+                .map(SubscriberContact::getEmail)
+                .toList();
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
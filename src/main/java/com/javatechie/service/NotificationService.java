@@ -1,20 +1,52 @@
 package com.javatechie.service;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import com.javatechie.model.Flight;
+import com.javatechie.model.NotificationKind;
+import com.javatechie.model.NotificationOutbox;
+import com.javatechie.model.OutboxStatus;
+import com.javatechie.repository.NotificationOutboxRepository;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
 //import com.twilio.Twilio;
 //import com.twilio.rest.api.v2010.account.Message;
 //import com.twilio.type.PhoneNumber;
 
 @Service
 public class NotificationService {
-    
+
     @Autowired
     private JavaMailSender mailSender;
-    
+    @Autowired
+    private NotificationOutboxRepository notificationOutboxRepository;
+    @Autowired
+    private NotificationTemplates notificationTemplates;
+
+    @Value("${flight.notification.coalesceWindowSeconds:120}")
+    private long coalesceWindowSeconds;
+
+    /**
+     * One message to send: an outbox entry rendered once and addressed to a chunk of its recipients.
+     */
+    public record OutgoingEmail(NotificationOutbox entry, List<String> recipients) {
+    }
+
     public void sendEmail(String to, String subject, String body) {
         SimpleMailMessage message = new SimpleMailMessage();
         message.setTo(to);
@@ -23,7 +55,121 @@ public class NotificationService {
 
         mailSender.send(message);
     }
-    
+
+    /**
+     * Records a change notice for every subscriber of the flight. Changes within
+     * {@code flight.notification.coalesceWindowSeconds} of a pending notice are merged into it as
+     * a digest instead of producing another email. Call it inside the transaction that saves the
+     * change; {@code version} is the flight's row version after the change.
+     */
+    public void enqueueFlightChange(Flight flight, Flight currentData, long version) {
+        String dedupKey = "change:" + flight.getId() + ":" + version;
+        if (notificationOutboxRepository.existsByDedupKey(dedupKey)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        String changeLine = notificationTemplates.changeLogLine(currentData);
+        NotificationOutbox pending = notificationOutboxRepository.findFirstByFlightIdAndKindAndStatusOrderByIdDesc(
+                flight.getId(), NotificationKind.CHANGE, OutboxStatus.PENDING);
+        if (pending != null && pending.getAttempts() == 0 && pending.getNextAttemptAt().isAfter(now)) {
+            String changeLog = pending.getChangeLog() + changeLine;
+            String body = notificationTemplates.digest(flight, currentData, pending.getDigestCount() + 1, changeLog);
+            if (notificationOutboxRepository.mergeDigest(pending.getId(), body, changeLog, now, OutboxStatus.PENDING) > 0) {
+                return;
+            }
+        }
+        notificationOutboxRepository.save(NotificationOutbox.builder()
+                .flightId(flight.getId())
+                .kind(NotificationKind.CHANGE)
+                .subject(notificationTemplates.changeSubject(flight))
+                .body(notificationTemplates.change(flight, currentData))
+                .changeLog(changeLine)
+                .digestCount(1)
+                .status(OutboxStatus.PENDING)
+                .createdAt(now)
+                .nextAttemptAt(now.plusSeconds(coalesceWindowSeconds))
+                .dedupKey(dedupKey)
+                .build());
+    }
+
+    public void enqueueFlightCancellation(Flight flight) {
+        String dedupKey = "cancellation:" + flight.getId();
+        if (notificationOutboxRepository.existsByDedupKey(dedupKey)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        notificationOutboxRepository.save(NotificationOutbox.builder()
+                .flightId(flight.getId())
+                .kind(NotificationKind.CANCELLATION)
+                .subject(notificationTemplates.cancellationSubject(flight))
+                .body(notificationTemplates.cancellation(flight))
+                .digestCount(1)
+                .status(OutboxStatus.PENDING)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .dedupKey(dedupKey)
+                .build());
+    }
+
+    public void enqueueConfirmation(Flight flight, String to) {
+        LocalDateTime now = LocalDateTime.now();
+        notificationOutboxRepository.save(NotificationOutbox.builder()
+                .flightId(flight.getId())
+                .kind(NotificationKind.CONFIRMATION)
+                .recipients(to)
+                .subject(notificationTemplates.confirmationSubject(flight))
+                .body(notificationTemplates.confirmation(flight))
+                .digestCount(1)
+                .status(OutboxStatus.PENDING)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
+    }
+
+    /**
+     * Sends the given messages over a single SMTP connection and returns the ones that failed,
+     * with their cause. Messages with several recipients are sent as Bcc.
+     */
+    public Map<OutgoingEmail, Exception> sendBatch(List<OutgoingEmail> batch) {
+        Map<OutgoingEmail, Exception> failures = new HashMap<>();
+        Map<MimeMessage, OutgoingEmail> messages = new IdentityHashMap<>();
+        for (OutgoingEmail email : batch) {
+            try {
+                MimeMessage message = mailSender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(message);
+                if (email.recipients().size() == 1) {
+                    helper.setTo(email.recipients().get(0));
+                } else {
+                    helper.setBcc(email.recipients().toArray(new String[0]));
+                }
+                helper.setSubject(email.entry().getSubject());
+                helper.setText(email.entry().getBody());
+                messages.put(message, email);
+            } catch (MessagingException e) {
+                failures.put(email, e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return failures;
+        }
+        try {
+            mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            e.getFailedMessages().forEach((message, cause) -> {
+                OutgoingEmail email = messages.get(message);
+                if (email != null) {
+                    failures.put(email, cause);
+                }
+            });
+            if (e.getFailedMessages().isEmpty()) {
+                messages.values().forEach(email -> failures.put(email, e));
+            }
+        } catch (MailException e) {
+            messages.values().forEach(email -> failures.put(email, e));
+        }
+        return failures;
+    }
+
 //    public void sendSMS(String to, String body) {
 //        Twilio.init("ACCOUNT_SID", "AUTH_TOKEN");
 //        Message.creator(new PhoneNumber(to), new PhoneNumber("YOUR_TWILIO_NUMBER"), body).create();
@@ -0,0 +1,97 @@
+package com.javatechie.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.javatechie.model.Flight;
+
+@Component
+public class NotificationTemplates {
+
+    private static final MessageTemplate CHANGE_SUBJECT = MessageTemplate.compile("Notification: Flight Details for {flightNumber}");
+    private static final MessageTemplate CHANGE = MessageTemplate.compile(
+            "We regret to inform you that your flight boarding details have changed.\n\n" +
+            "Flight Number: {flightNumber}\n" +
+            "Scheduled Time: {scheduledTime}\n" +
+            "Estimated Time: {estimatedTime}\n" +
+            "Gate No: {gate}\n" +
+            "Terminal: {terminal}\n\n" +
+            "We apologize for any inconvenience this may cause. Please contact our support team for further information.");
+    private static final MessageTemplate DIGEST = MessageTemplate.compile(
+            "We regret to inform you that your flight boarding details have changed {changeCount} times.\n\n" +
+            "Latest details:\n" +
+            "Flight Number: {flightNumber}\n" +
+            "Scheduled Time: {scheduledTime}\n" +
+            "Estimated Time: {estimatedTime}\n" +
+            "Gate No: {gate}\n" +
+            "Terminal: {terminal}\n\n" +
+            "Updates:\n{changeLog}\n" +
+            "We apologize for any inconvenience this may cause. Please contact our support team for further information.");
+    private static final MessageTemplate CHANGE_LOG_LINE = MessageTemplate.compile(
+            "- Estimated Time: {estimatedTime}, Gate No: {gate}, Terminal: {terminal}\n");
+    private static final MessageTemplate CANCELLATION_SUBJECT = MessageTemplate.compile("Flight Cancellation Notification for Flight {flightNumber}");
+    private static final MessageTemplate CANCELLATION = MessageTemplate.compile(
+            "We regret to inform you that your flight has been canceled.\n\n" +
+            "Flight Number: {flightNumber}\n" +
+            "Scheduled Time: {scheduledTime}\n" +
+            "We apologize for any inconvenience this may cause. Please contact our support team for assistance with rebooking or further information.");
+    private static final MessageTemplate CONFIRMATION_SUBJECT = MessageTemplate.compile("Subscription Confirmation for Flight {flightNumber}");
+    private static final MessageTemplate CONFIRMATION = MessageTemplate.compile(
+            "Subscription confirmation for flight: {flightNumber}.\n" +
+            "Current status: Scheduled: {scheduledTime},\n" +
+            "Estimated: {estimatedTime}\n" +
+            ", Gate No: {gate}\n" +
+            ", Terminal: {terminal} \n\n" +
+            "Thank you for choosing us");
+
+    public String changeSubject(Flight flight) {
+        return CHANGE_SUBJECT.render(values(flight));
+    }
+
+    public String change(Flight flight, Flight currentData) {
+        return CHANGE.render(values(flight, currentData));
+    }
+
+    public String changeLogLine(Flight currentData) {
+        return CHANGE_LOG_LINE.render(values(currentData));
+    }
+
+    public String digest(Flight flight, Flight currentData, int changeCount, String changeLog) {
+        Map<String, Object> values = values(flight, currentData);
+        values.put("changeCount", changeCount);
+        values.put("changeLog", changeLog);
+        return DIGEST.render(values);
+    }
+
+    public String cancellationSubject(Flight flight) {
+        return CANCELLATION_SUBJECT.render(values(flight));
+    }
+
+    public String cancellation(Flight flight) {
+        return CANCELLATION.render(values(flight));
+    }
+
+    public String confirmationSubject(Flight flight) {
+        return CONFIRMATION_SUBJECT.render(values(flight));
+    }
+
+    public String confirmation(Flight flight) {
+        return CONFIRMATION.render(values(flight));
+    }
+
+    private Map<String, Object> values(Flight flight) {
+        return values(flight, flight);
+    }
+
+    private Map<String, Object> values(Flight flight, Flight currentData) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("flightNumber", flight.getFlightNumber());
+        values.put("scheduledTime", currentData.getScheduledTime());
+        values.put("estimatedTime", currentData.getEstimatedTime());
+        values.put("gate", currentData.getGate());
+        values.put("terminal", currentData.getTerminal());
+        return values;
+    }
+}
@@ -0,0 +1,189 @@
+package com.javatechie.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Splits polling between running instances. Flights are spread over
+ * {@code flight.cluster.partitions} partitions by id, and each instance leases an equal share
+ * of them through conditional updates on the {@code partition_lease} table. Every heartbeat
+ * renews the held leases, gives back partitions above the fair share when an instance joins,
+ * and takes over expired leases when one dies. Leases this instance failed to renew stop
+ * counting as owned once they expire, since another instance may take them over by then.
+ */
+@Component
+public class PartitionLeaseManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionLeaseManager.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${flight.cluster.partitions:64}")
+    private int partitions;
+    @Value("${flight.cluster.leaseSeconds:30}")
+    private long leaseSeconds;
+    @Value("${flight.cluster.instanceId:}")
+    private String instanceId;
+
+    private volatile Set<Integer> owned = Set.of();
+    private volatile LocalDateTime ownedUntil = LocalDateTime.MIN;
+    private volatile long generation;
+    private volatile boolean rebalanced;
+    private boolean partitionsCreated;
+
+    @PostConstruct
+    public void start() {
+        if (instanceId == null || instanceId.isBlank()) {
+            instanceId = UUID.randomUUID().toString();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${flight.cluster.heartbeatMillis:10000}")
+    public void heartbeat() {
+        try {
+            rebalance(LocalDateTime.now());
+        } catch (Exception e) {
+            logger.error("Error renewing partition leases: {}", e.getMessage());
+            expireLeases(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Drops the owned partitions once their leases have run out without a renewal, so the
+     * poller rediscovers its flights after the next successful heartbeat.
+     */
+    synchronized void expireLeases(LocalDateTime now) {
+        if (!owned.isEmpty() && !now.isBefore(ownedUntil)) {
+            owned = Set.of();
+            generation++;
+            logger.warn("Partition leases of instance {} expired without renewal, polling stops until they are renewed", instanceId);
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        try {
+            jdbcTemplate.update("update partition_lease set owner_id = null, lease_until = null where owner_id = ?", instanceId);
+            jdbcTemplate.update("delete from polling_instance where instance_id = ?", instanceId);
+        } catch (Exception e) {
+            logger.error("Error releasing partition leases: {}", e.getMessage());
+        }
+    }
+
+    synchronized void rebalance(LocalDateTime now) {
+        createPartitions();
+        LocalDateTime leaseUntil = now.plusSeconds(leaseSeconds);
+        if (jdbcTemplate.update("update polling_instance set heartbeat_at = ? where instance_id = ?", now, instanceId) == 0) {
+            jdbcTemplate.update("insert into polling_instance (instance_id, heartbeat_at) values (?, ?)", instanceId, now);
+        }
+        Integer live = jdbcTemplate.queryForObject("select count(*) from polling_instance where heartbeat_at > ?",
+                Integer.class, now.minusSeconds(leaseSeconds));
+        int share = (partitions + Math.max(1, live) - 1) / Math.max(1, live);
+
+        jdbcTemplate.update("update partition_lease set lease_until = ? where owner_id = ?", leaseUntil, instanceId);
+        List<Integer> mine = new ArrayList<>(jdbcTemplate.queryForList(
+                "select partition_id from partition_lease where owner_id = ? and partition_id < ? order by partition_id",
+                Integer.class, instanceId, partitions));
+        while (mine.size() > share) {
+            Integer partition = mine.remove(mine.size() - 1);
+            jdbcTemplate.update("update partition_lease set owner_id = null, lease_until = null where partition_id = ? and owner_id = ?",
+                    partition, instanceId);
+        }
+        if (mine.size() < share) {
+            List<Integer> free = jdbcTemplate.queryForList(
+                    "select partition_id from partition_lease where partition_id < ? and (owner_id is null or lease_until < ?) "
+                            + "order by partition_id", Integer.class, partitions, now);
+            // Start at a random point so instances joining together do not race for the same rows
+            Collections.rotate(free, free.isEmpty() ? 0 : ThreadLocalRandom.current().nextInt(free.size()));
+            for (Integer partition : free) {
+                if (mine.size() >= share) {
+                    break;
+                }
+                if (jdbcTemplate.update("update partition_lease set owner_id = ?, lease_until = ? "
+                        + "where partition_id = ? and (owner_id is null or lease_until < ?)", instanceId, leaseUntil, partition, now) == 1) {
+                    mine.add(partition);
+                }
+            }
+        }
+        jdbcTemplate.update("delete from polling_instance where heartbeat_at < ?", now.minusSeconds(leaseSeconds * 10));
+
+        Set<Integer> next = Set.copyOf(mine);
+        boolean lapsed = !owned.isEmpty() && !now.isBefore(ownedUntil); // Their flights were dropped meanwhile
+        ownedUntil = leaseUntil;
+        if (lapsed || !next.equals(owned)) {
+            owned = next;
+            generation++;
+            logger.info("Instance {} now polls {} of {} partitions ({} live instances)", instanceId, next.size(), partitions, live);
+        }
+        rebalanced = true;
+    }
+
+    public boolean owns(Long flightId) {
+        return getOwnedPartitions().contains(partitionOf(flightId));
+    }
+
+    public int partitionOf(Long flightId) {
+        return (int) Math.floorMod(flightId, (long) partitions);
+    }
+
+    /**
+     * Whether the leases have been settled at least once since startup.
+     */
+    public boolean hasRebalanced() {
+        return rebalanced;
+    }
+
+    /**
+     * The partitions whose leases are still held, empty once they expired without a renewal
+     * even if the failing heartbeat has not noticed yet.
+     */
+    public Set<Integer> getOwnedPartitions() {
+        return LocalDateTime.now().isBefore(ownedUntil) ? owned : Set.of();
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Increases every time the set of owned partitions changes.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    private void createPartitions() {
+        if (partitionsCreated) {
+            return;
+        }
+        Integer existing = jdbcTemplate.queryForObject("select count(*) from partition_lease", Integer.class);
+        if (existing < partitions) {
+            for (int partition = 0; partition < partitions; partition++) {
+                try {
+                    jdbcTemplate.update("insert into partition_lease (partition_id) select ? from (select 1 as one) seed "
+                            + "where not exists (select 1 from partition_lease where partition_id = ?)", partition, partition);
+                } catch (Exception e) {
+                    logger.debug("Partition {} was created concurrently: {}", partition, e.getMessage());
+                }
+            }
+        }
+        partitionsCreated = true;
+    }
+}
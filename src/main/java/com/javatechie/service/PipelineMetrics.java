@@ -0,0 +1,159 @@
+package com.javatechie.service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Meters for the polling and notification pipeline. Every meter is registered up front and
+ * held in a field, so recording on the hot path is a clock read and an atomic add, with no
+ * registry lookups. Tags are limited to small fixed sets (stage, outcome, result, status class).
+ */
+@Component
+public class PipelineMetrics {
+
+    public enum Stage {
+        LOAD, FILTER, UPSTREAM, PARSE, DIFF, SAVE, SEND
+    }
+
+    @Autowired
+    private MeterRegistry registry;
+    @Autowired
+    private FlightPollScheduler pollScheduler;
+    @Autowired
+    private FlightSnapshotStore snapshotStore;
+    @Autowired
+    private FlightEventBroker flightEventBroker;
+    @Autowired
+    private ApiQuotaManager apiQuotaManager;
+
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<PollOutcome, Counter> outcomeCounters = new EnumMap<>(PollOutcome.class);
+    private Timer cycleTimer;
+    private Counter cycleOverruns;
+    private Counter cycleSkips;
+    private Counter deferredPolls;
+    private Counter unchangedResponses;
+    private Counter appliedUpdates;
+    private Counter conflictingUpdates;
+    private Counter sentEmails;
+    private Counter failedEmails;
+    private Counter deadNotifications;
+    private Counter upstream2xx;
+    private Counter upstream4xx;
+    private Counter upstream429;
+    private Counter upstream5xx;
+    private Counter upstreamIoErrors;
+    private Counter upstreamRejected;
+
+    @PostConstruct
+    public void register() {
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("flight.pipeline.stage")
+                    .description("Time spent in one stage of the polling and notification pipeline")
+                    .tag("stage", stage.name().toLowerCase())
+                    .register(registry));
+        }
+        for (PollOutcome outcome : PollOutcome.values()) {
+            outcomeCounters.put(outcome, Counter.builder("flight.poll.outcomes")
+                    .description("Flights polled, by outcome")
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(registry));
+        }
+        cycleTimer = Timer.builder("flight.poll.cycle").description("Polling cycle duration").register(registry);
+        cycleOverruns = Counter.builder("flight.poll.cycle.overruns").description("Cycles that ran longer than the tick interval").register(registry);
+        cycleSkips = Counter.builder("flight.poll.cycle.skipped").description("Ticks skipped because the previous cycle was still running").register(registry);
+        deferredPolls = Counter.builder("flight.poll.deferred").description("Due polls deferred by the API quota").register(registry);
+        unchangedResponses = Counter.builder("flight.poll.unchanged.responses").description("Responses skipped before parsing because their fingerprint was unchanged").register(registry);
+        appliedUpdates = counter("flight.state.updates", "result", "applied");
+        conflictingUpdates = counter("flight.state.updates", "result", "conflict");
+        sentEmails = counter("flight.notifications.emails", "result", "sent");
+        failedEmails = counter("flight.notifications.emails", "result", "failed");
+        deadNotifications = counter("flight.notifications.emails", "result", "dead");
+        upstream2xx = counter("flight.upstream.requests", "status", "2xx");
+        upstream4xx = counter("flight.upstream.requests", "status", "4xx");
+        upstream429 = counter("flight.upstream.requests", "status", "429");
+        upstream5xx = counter("flight.upstream.requests", "status", "5xx");
+        upstreamIoErrors = counter("flight.upstream.requests", "status", "io_error");
+        upstreamRejected = counter("flight.upstream.requests", "status", "circuit_open");
+
+        Gauge.builder("flight.poll.tracked", pollScheduler, FlightPollScheduler::size).register(registry);
+        Gauge.builder("flight.snapshot.size", snapshotStore, FlightSnapshotStore::size).register(registry);
+        Gauge.builder("flight.stream.connections", flightEventBroker, FlightEventBroker::getConnectionCount).register(registry);
+        FunctionCounter.builder("flight.stream.dropped", flightEventBroker, FlightEventBroker::getDroppedEvents).register(registry);
+        Gauge.builder("flight.quota.used", apiQuotaManager, ApiQuotaManager::getUsedToday).tag("period", "day").register(registry);
+        Gauge.builder("flight.quota.used", apiQuotaManager, ApiQuotaManager::getUsedThisMonth).tag("period", "month").register(registry);
+    }
+
+    public void record(Stage stage, long startNanos) {
+        stageTimers.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void cycle(long nanos, boolean overrun) {
+        cycleTimer.record(nanos, TimeUnit.NANOSECONDS);
+        if (overrun) {
+            cycleOverruns.increment();
+        }
+    }
+
+    public void cycleSkipped() {
+        cycleSkips.increment();
+    }
+
+    public void outcome(PollOutcome outcome) {
+        outcomeCounters.get(outcome).increment();
+    }
+
+    public void deferred(int count) {
+        deferredPolls.increment(count);
+    }
+
+    public void unchangedResponse() {
+        unchangedResponses.increment();
+    }
+
+    public void flushed(FlightStateWriter.FlushResult result) {
+        appliedUpdates.increment(result.applied());
+        conflictingUpdates.increment(result.conflicts());
+    }
+
+    public void emails(int sent, int failed, int dead) {
+        sentEmails.increment(sent);
+        failedEmails.increment(failed);
+        deadNotifications.increment(dead);
+    }
+
+    public void upstreamStatus(int status) {
+        if (status == 429) {
+            upstream429.increment();
+        } else if (status >= 500) {
+            upstream5xx.increment();
+        } else if (status >= 400) {
+            upstream4xx.increment();
+        } else {
+            upstream2xx.increment();
+        }
+    }
+
+    public void upstreamIoError() {
+        upstreamIoErrors.increment();
+    }
+
+    public void upstreamRejected() {
+        upstreamRejected.increment();
+    }
+
+    private Counter counter(String name, String tag, String value) {
+        return Counter.builder(name).tag(tag, value).register(registry);
+    }
+}
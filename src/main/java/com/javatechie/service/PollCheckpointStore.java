@@ -0,0 +1,110 @@
+package com.javatechie.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.javatechie.model.PollCheckpoint;
+import com.javatechie.repository.PollCheckpointRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Saves the poll scheduler's checkpoints every {@code flight.polling.checkpointMillis} and on
+ * shutdown, so a restarted instance knows when each of its flights was last polled.
+ */
+@Component
+public class PollCheckpointStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PollCheckpointStore.class);
+
+    @Autowired
+    private FlightPollScheduler pollScheduler;
+    @Autowired
+    private PollCheckpointRepository pollCheckpointRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${flight.polling.checkpointRetentionHours:48}")
+    private long retentionHours;
+
+    @Scheduled(fixedDelayString = "${flight.polling.checkpointMillis:60000}")
+    public void checkpoint() {
+        try {
+            save(pollScheduler.takeCheckpoints());
+        } catch (Exception e) {
+            logger.error("Error saving poll checkpoints: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpoint();
+    }
+
+    @Scheduled(fixedDelayString = "${flight.polling.checkpointCleanupMillis:3600000}")
+    public void cleanup() {
+        try {
+            int deleted = jdbcTemplate.update("delete from poll_checkpoint where last_polled_at < ?",
+                    LocalDateTime.now().minusHours(retentionHours));
+            if (deleted > 0) {
+                logger.info("Deleted {} stale poll checkpoints", deleted);
+            }
+        } catch (Exception e) {
+            logger.error("Error deleting stale poll checkpoints: {}", e.getMessage());
+        }
+    }
+
+    public Map<Long, PollCheckpoint> load(Collection<Long> flightIds) {
+        Map<Long, PollCheckpoint> checkpoints = new HashMap<>();
+        if (!flightIds.isEmpty()) {
+            pollCheckpointRepository.findAllById(flightIds).forEach(checkpoint -> checkpoints.put(checkpoint.getFlightId(), checkpoint));
+        }
+        return checkpoints;
+    }
+
+    void save(List<PollCheckpoint> checkpoints) {
+        if (checkpoints.isEmpty()) {
+            return;
+        }
+        int[][] updated = jdbcTemplate.batchUpdate("update poll_checkpoint set last_polled_at = ?, unchanged_count = ? where flight_id = ?",
+                checkpoints, checkpoints.size(), (ps, checkpoint) -> {
+                    ps.setTimestamp(1, Timestamp.valueOf(checkpoint.getLastPolledAt()));
+                    ps.setInt(2, checkpoint.getUnchangedCount());
+                    ps.setLong(3, checkpoint.getFlightId());
+                });
+        List<PollCheckpoint> missing = new ArrayList<>();
+        for (int i = 0; i < checkpoints.size(); i++) {
+            if (updated[0][i] == 0) {
+                missing.add(checkpoints.get(i));
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate("insert into poll_checkpoint (flight_id, last_polled_at, unchanged_count) values (?, ?, ?)",
+                    missing, missing.size(), (ps, checkpoint) -> {
+                        ps.setLong(1, checkpoint.getFlightId());
+                        ps.setTimestamp(2, Timestamp.valueOf(checkpoint.getLastPolledAt()));
+                        ps.setInt(3, checkpoint.getUnchangedCount());
+                    });
+        } catch (DataIntegrityViolationException e) {
+            // Another instance took the flight over and checkpointed it first; it has the newer poll
+            logger.debug("Poll checkpoints written concurrently: {}", e.getMessage());
+        }
+    }
+}
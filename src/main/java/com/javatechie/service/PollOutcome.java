@@ -0,0 +1,15 @@
+package com.javatechie.service;
+
+/**
+ * Result of polling one flight, ordered by precedence when several response items disagree.
+ */
+public enum PollOutcome {
+    FAILED,
+    UNCHANGED,
+    CHANGED,
+    CANCELLED;
+
+    public PollOutcome merge(PollOutcome other) {
+        return other.ordinal() > ordinal() ? other : this;
+    }
+}
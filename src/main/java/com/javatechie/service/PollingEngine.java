@@ -0,0 +1,108 @@
+package com.javatechie.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs polling cycles on a bounded worker pool. Cycles never overlap: a tick that fires
+ * while the previous cycle is still running is skipped.
+ */
+@Component
+public class PollingEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(PollingEngine.class);
+
+    @Value("${flight.polling.concurrency:16}")
+    private int concurrency;
+    @Value("${flight.polling.tickMillis:30000}")
+    private long tickMillis;
+    @Autowired
+    private PipelineMetrics metrics;
+
+    private ExecutorService executor;
+    private final AtomicBoolean cycleRunning = new AtomicBoolean(false);
+    private volatile Duration lastCycleDuration = Duration.ZERO;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "flight-poller-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = Executors.newFixedThreadPool(concurrency, threadFactory);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean runCycle(Runnable cycle) {
+        if (!cycleRunning.compareAndSet(false, true)) {
+            logger.warn("Previous polling cycle is still running, skipping this tick");
+            metrics.cycleSkipped();
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            cycle.run();
+        } finally {
+            lastCycleDuration = Duration.ofNanos(System.nanoTime() - start);
+            metrics.cycle(lastCycleDuration.toNanos(), lastCycleDuration.toMillis() > tickMillis);
+            cycleRunning.set(false);
+            logger.info("Polling cycle finished in {} ms", lastCycleDuration.toMillis());
+        }
+        return true;
+    }
+
+    public <T> void pollAll(Collection<T> items, Consumer<T> task) {
+        List<Future<?>> futures = new ArrayList<>(items.size());
+        for (T item : items) {
+            futures.add(executor.submit(() -> task.accept(item)));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                logger.error("Error in polling task: {}", e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                return;
+            }
+        }
+    }
+
+    public Duration getLastCycleDuration() {
+        return lastCycleDuration;
+    }
+
+    public boolean isCycleRunning() {
+        return cycleRunning.get();
+    }
+}
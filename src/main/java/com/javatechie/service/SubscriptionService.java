@@ -0,0 +1,240 @@
+package com.javatechie.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javatechie.model.Flight;
+import com.javatechie.model.Subscription;
+import com.javatechie.model.SubscriptionRequest;
+import com.javatechie.model.User;
+import com.javatechie.repository.FlightRepository;
+import com.javatechie.repository.SubscriptionRepository;
+import com.javatechie.repository.UserRepository;
+
+@Service
+public class SubscriptionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionService.class);
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private FlightRepository flightRepository;
+    @Autowired
+    private NotificationService notificationService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${flight.subscription.bulkBatchSize:500}")
+    private int bulkBatchSize;
+
+    public record BulkResult(int received, int subscribed, int duplicates, int rejected) {
+    }
+
+    /**
+     * Subscribes the user to the flight and queues the confirmation email, once per flight and
+     * email. Returns false when the subscription already existed. A concurrent duplicate trips a
+     * unique constraint and is retried once, when it is seen as existing.
+     */
+    public boolean subscribe(Flight flight, User user) {
+        try {
+            return transactionTemplate.execute(status -> subscribeOnce(flight, user));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Concurrent subscription of {} to flight {}: {}", user.getEmail(), flight.getFlightNumber(), e.getMessage());
+            return transactionTemplate.execute(status -> subscribeOnce(flight, user));
+        }
+    }
+
+    /**
+     * Reads flight/email pairs, one per line, as NDJSON objects or as CSV rows of
+     * {@code flightNumber,email[,name[,scheduledTime]]} without quoting. Lines are processed as
+     * they arrive in batches of {@code flight.subscription.bulkBatchSize}, each written with JDBC
+     * batches in its own transaction; only new subscriptions get a confirmation.
+     */
+    public BulkResult subscribeAll(InputStream body, boolean csv) throws IOException {
+        int received = 0;
+        int subscribed = 0;
+        int rejected = 0;
+        List<SubscriptionRequest> batch = new ArrayList<>(bulkBatchSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            boolean first = true;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (first && csv && line.trim().regionMatches(true, 0, "flightNumber", 0, 12)) {
+                    first = false;
+                    continue; // Header row
+                }
+                first = false;
+                received++;
+                SubscriptionRequest request = csv ? parseCsv(line) : parseJson(line);
+                if (request == null) {
+                    rejected++;
+                    continue;
+                }
+                batch.add(request);
+                if (batch.size() == bulkBatchSize) {
+                    subscribed += importBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            subscribed += importBatch(batch);
+        }
+        logger.info("Bulk subscription: {} received, {} subscribed, {} rejected", received, subscribed, rejected);
+        return new BulkResult(received, subscribed, received - rejected - subscribed, rejected);
+    }
+
+    private boolean subscribeOnce(Flight flight, User user) {
+        User subscriber = userService.findOrCreateUser(user);
+        if (subscriptionRepository.existsByFlightIdAndUserUserid(flight.getId(), subscriber.getUserid())) {
+            return false;
+        }
+        subscriptionRepository.saveAndFlush(Subscription.builder()
+                .flight(flight)
+                .user(subscriber)
+                .createdAt(LocalDateTime.now())
+                .build());
+        notificationService.enqueueConfirmation(flight, subscriber.getEmail());
+        return true;
+    }
+
+    private int importBatch(List<SubscriptionRequest> batch) {
+        try {
+            return transactionTemplate.execute(status -> writeBatch(batch));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Concurrent bulk subscription, retrying batch: {}", e.getMessage());
+            return transactionTemplate.execute(status -> writeBatch(batch));
+        }
+    }
+
+    private int writeBatch(List<SubscriptionRequest> batch) {
+        Map<String, SubscriptionRequest> byFlightNumber = new LinkedHashMap<>();
+        Map<String, SubscriptionRequest> byEmail = new LinkedHashMap<>();
+        for (SubscriptionRequest request : batch) {
+            byFlightNumber.putIfAbsent(request.flightNumber(), request);
+            byEmail.putIfAbsent(request.email(), request);
+        }
+
+        jdbcTemplate.batchUpdate("insert into flight (flight_number, scheduled_time, version) select ?, ?, 0 from (select 1 as one) seed "
+                        + "where not exists (select 1 from flight where flight_number = ?)",
+                byFlightNumber.values(), bulkBatchSize, (ps, request) -> {
+                    ps.setString(1, request.flightNumber());
+                    ps.setTimestamp(2, request.scheduledTime() == null ? null : Timestamp.valueOf(request.scheduledTime()));
+                    ps.setString(3, request.flightNumber());
+                });
+        jdbcTemplate.batchUpdate("insert into user (email, name) select ?, ? from (select 1 as one) seed "
+                        + "where not exists (select 1 from user where email = ?)",
+                byEmail.values(), bulkBatchSize, (ps, request) -> {
+                    ps.setString(1, request.email());
+                    ps.setString(2, request.name());
+                    ps.setString(3, request.email());
+                });
+
+        Map<String, Flight> flights = new HashMap<>();
+        flightRepository.findByFlightNumberIn(byFlightNumber.keySet()).forEach(flight -> flights.put(flight.getFlightNumber(), flight));
+        Map<String, User> users = new HashMap<>();
+        userRepository.findByEmailIn(byEmail.keySet()).forEach(user -> users.put(user.getEmail(), user));
+
+        Set<String> existing = new HashSet<>();
+        if (!flights.isEmpty() && !users.isEmpty()) {
+            for (Object[] pair : subscriptionRepository.findPairs(flightIds(flights), userIds(users))) {
+                existing.add(pair[0] + ":" + pair[1]);
+            }
+        }
+        List<Object[]> inserts = new ArrayList<>();
+        List<SubscriptionRequest> confirmations = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (SubscriptionRequest request : batch) {
+            Flight flight = flights.get(request.flightNumber());
+            User user = users.get(request.email());
+            if (flight != null && user != null && existing.add(flight.getId() + ":" + user.getUserid())) {
+                inserts.add(new Object[] {flight.getId(), user.getUserid(), Timestamp.valueOf(now)});
+                confirmations.add(request);
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into subscription (flight_id, user_id, created_at) values (?, ?, ?)", inserts);
+        for (SubscriptionRequest request : confirmations) {
+            notificationService.enqueueConfirmation(flights.get(request.flightNumber()), request.email());
+        }
+        return inserts.size();
+    }
+
+    private Set<Long> flightIds(Map<String, Flight> flights) {
+        Set<Long> ids = new HashSet<>();
+        flights.values().forEach(flight -> ids.add(flight.getId()));
+        return ids;
+    }
+
+    private Set<Long> userIds(Map<String, User> users) {
+        Set<Long> ids = new HashSet<>();
+        users.values().forEach(user -> ids.add(user.getUserid()));
+        return ids;
+    }
+
+    private SubscriptionRequest parseJson(String line) {
+        try {
+            return validate(objectMapper.readValue(line, SubscriptionRequest.class));
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private SubscriptionRequest parseCsv(String line) {
+        String[] columns = line.split(",", -1);
+        if (columns.length < 2) {
+            return null;
+        }
+        try {
+            return validate(new SubscriptionRequest(columns[0],
+                    columns[1],
+                    columns.length > 2 && !columns[2].isBlank() ? columns[2].trim() : null,
+                    columns.length > 3 && !columns[3].isBlank() ? LocalDateTime.parse(columns[3].trim()) : null));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private SubscriptionRequest validate(SubscriptionRequest request) {
+        if (request == null || request.flightNumber() == null || request.flightNumber().isBlank()
+                || request.email() == null || !UserService.isValidEmail(request.email().trim())) {
+            return null;
+        }
+        return new SubscriptionRequest(request.flightNumber().trim(), request.email().trim(), request.name(), request.scheduledTime());
+    }
+}
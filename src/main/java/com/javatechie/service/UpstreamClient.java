@@ -0,0 +1,125 @@
+package com.javatechie.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Single entry point for aviationstack calls: pooled connections with timeouts, the global
+ * rate limit, quota accounting, and a circuit breaker that fails fast while the upstream is
+ * erroring.
+ */
+@Component
+public class UpstreamClient {
+
+    @Autowired
+    private RestTemplate upstreamRestTemplate;
+    @Autowired
+    private PoolingHttpClientConnectionManager upstreamConnectionManager;
+    @Autowired
+    private UpstreamRateLimiter upstreamRateLimiter;
+    @Autowired
+    private ApiQuotaManager apiQuotaManager;
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Value("${flight.upstream.breaker.windowSize:20}")
+    private int breakerWindowSize;
+    @Value("${flight.upstream.breaker.minimumCalls:10}")
+    private int breakerMinimumCalls;
+    @Value("${flight.upstream.breaker.failureRateThreshold:0.5}")
+    private double breakerFailureRateThreshold;
+    @Value("${flight.upstream.breaker.openMillis:30000}")
+    private long breakerOpenMillis;
+    @Value("${flight.upstream.breaker.maxOpenMillis:600000}")
+    private long breakerMaxOpenMillis;
+
+    private CircuitBreaker circuitBreaker;
+
+    @PostConstruct
+    public void init() {
+        circuitBreaker = new CircuitBreaker("aviationstack", breakerWindowSize, breakerMinimumCalls,
+                breakerFailureRateThreshold, breakerOpenMillis, breakerMaxOpenMillis);
+    }
+
+    public String get(String url) {
+        return fetch(url, String.class);
+    }
+
+    public byte[] getBytes(String url) {
+        return fetch(url, byte[].class);
+    }
+
+    private <T> T fetch(String url, Class<T> responseType) {
+        if (!circuitBreaker.tryAcquire()) {
+            metrics.upstreamRejected();
+            throw new UpstreamUnavailableException("aviationstack circuit breaker is open");
+        }
+        return circuitBreaker.record(() -> {
+            upstreamRateLimiter.acquire();
+            apiQuotaManager.recordCall();
+            long start = System.nanoTime();
+            try {
+                T body = upstreamRestTemplate.getForObject(url, responseType);
+                metrics.upstreamStatus(200);
+                if (reportsUsageLimit(body)) {
+                    apiQuotaManager.markExhausted(LocalDateTime.now());
+                } else {
+                    apiQuotaManager.markAvailable(LocalDateTime.now());
+                }
+                return body;
+            } catch (HttpStatusCodeException e) {
+                metrics.upstreamStatus(e.getStatusCode().value());
+                if (e.getResponseBodyAsString().contains(AviationstackErrorException.USAGE_LIMIT_REACHED)) {
+                    apiQuotaManager.markExhausted(LocalDateTime.now());
+                }
+                throw e;
+            } catch (RestClientException e) {
+                metrics.upstreamIoError();
+                throw e;
+            } finally {
+                metrics.record(PipelineMetrics.Stage.UPSTREAM, start);
+            }
+        }, this::isClientError);
+    }
+
+    /**
+     * aviationstack also reports an exhausted quota in the body of a 200 response.
+     */
+    private boolean reportsUsageLimit(Object body) {
+        if (body instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.ISO_8859_1).contains(AviationstackErrorException.USAGE_LIMIT_REACHED);
+        }
+        return body != null && body.toString().contains(AviationstackErrorException.USAGE_LIMIT_REACHED);
+    }
+
+    /**
+     * Rejected requests other than rate limiting say nothing about the upstream's health.
+     */
+    private boolean isClientError(RuntimeException e) {
+        return e instanceof HttpStatusCodeException status
+                && status.getStatusCode().is4xxClientError() && status.getStatusCode().value() != 429;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    public double getFailureRate() {
+        return circuitBreaker.getFailureRate();
+    }
+
+    public PoolStats getPoolStats() {
+        return upstreamConnectionManager.getTotalStats();
+    }
+}
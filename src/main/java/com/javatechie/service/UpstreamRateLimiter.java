@@ -0,0 +1,38 @@
+package com.javatechie.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Global requests-per-second limiter for aviationstack calls. Permits are handed out
+ * in evenly spaced slots, so callers on any thread block until their slot comes up.
+ */
+@Component
+public class UpstreamRateLimiter {
+
+    @Value("${flight.upstream.requestsPerSecond:5}")
+    private double requestsPerSecond;
+
+    private long nextFreeSlotNanos = System.nanoTime();
+
+    public void acquire() {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        long slot = Math.max(now, nextFreeSlotNanos);
+        nextFreeSlotNanos = slot + interval;
+        return slot - now;
+    }
+}
@@ -0,0 +1,10 @@
+package com.javatechie.service;
+
+import org.springframework.web.client.RestClientException;
+
+public class UpstreamUnavailableException extends RestClientException {
+
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+}
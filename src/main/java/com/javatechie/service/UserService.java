@@ -5,13 +5,26 @@ import com.javatechie.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.regex.Pattern;
+
 @Service
 public class UserService {
 
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$");
+
     @Autowired
     private UserRepository userRepository;
 
+    public static boolean isValidEmail(String email) {
+        return email != null && EMAIL_PATTERN.matcher(email).matches();
+    }
+
     public void saveUser(User user) {
         userRepository.save(user);
     }
+
+    public User findOrCreateUser(User user) {
+        User existing = userRepository.findFirstByEmail(user.getEmail());
+        return existing != null ? existing : userRepository.save(user);
+    }
 }
@@ -0,0 +1,107 @@
+package com.javatechie.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class ApiQuotaManagerTests {
+
+	private ApiQuotaManager quota;
+
+	@BeforeEach
+	void setUp() {
+		quota = new ApiQuotaManager();
+		ReflectionTestUtils.setField(quota, "monthlyCalls", 3000L);
+		ReflectionTestUtils.setField(quota, "dailyCalls", 0L);
+		ReflectionTestUtils.setField(quota, "burstFactor", 4L);
+		ReflectionTestUtils.setField(quota, "tickMillis", 60_000L);
+		ReflectionTestUtils.setField(quota, "resetDay", 1);
+		ReflectionTestUtils.setField(quota, "probeMinutes", 60L);
+	}
+
+	@Test
+	void pacesTheMonthlyBudgetOverTheRemainingDaysAndTicks() {
+		LocalDateTime lastDay = LocalDateTime.of(2024, 6, 30, 23, 50);
+		assertEquals(4, quota.allowance(LocalDateTime.of(2024, 6, 1, 0, 0)));
+		assertEquals(1200, quota.allowance(lastDay));
+
+		for (int i = 0; i < 3000; i++) {
+			quota.recordCall();
+		}
+		assertEquals(0, quota.allowance(lastDay));
+	}
+
+	@Test
+	void stopsUntilTheMonthResetsOnceUpstreamReportsTheLimit() {
+		LocalDateTime now = LocalDateTime.of(2024, 6, 12, 9, 0);
+		quota.markExhausted(now);
+
+		assertEquals(0, quota.allowance(now.plusMinutes(30)));
+		assertEquals(LocalDateTime.of(2024, 7, 1, 0, 0), quota.getExhaustedUntil());
+		assertEquals(4, quota.allowance(LocalDateTime.of(2024, 7, 1, 0, 0)));
+	}
+
+	@Test
+	void pausesUntilThePlansResetDayAndProbesForAnEarlyRenewal() {
+		ReflectionTestUtils.setField(quota, "resetDay", 15);
+		LocalDateTime now = LocalDateTime.of(2024, 6, 20, 9, 0);
+		quota.markExhausted(now);
+		assertEquals(LocalDateTime.of(2024, 7, 15, 0, 0), quota.getExhaustedUntil());
+
+		assertEquals(0, quota.allowance(now.plusMinutes(30)));
+		assertEquals(1, quota.allowance(now.plusMinutes(60)));
+		assertEquals(0, quota.allowance(now.plusMinutes(61)));
+
+		quota.markAvailable(now.plusMinutes(61));
+		assertNull(quota.getExhaustedUntil());
+		assertEquals(1200, quota.allowance(LocalDateTime.of(2024, 7, 14, 23, 50))); // Last day of the period
+	}
+
+	@Test
+	void keepsTheUnusedInteractiveReserveFromThePoller() {
+		ReflectionTestUtils.setField(quota, "interactiveReserve", 0.1);
+		LocalDateTime lastDay = LocalDateTime.of(2024, 6, 30, 23, 50);
+		assertEquals(1080, quota.allowance(lastDay));
+
+		for (int i = 0; i < 100; i++) {
+			quota.recordCall();
+			quota.recordInteractiveCall();
+		}
+		assertEquals(1080, quota.allowance(lastDay));
+	}
+
+	@Test
+	void failedSyncLeavesBothPeriodsUntouched() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("create table api_usage (period_key varchar(255) primary key, call_count bigint not null, "
+				+ "constraint ck_no_month check (period_key not like 'month:%'))");
+		ReflectionTestUtils.setField(quota, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(quota, "transactionTemplate", new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+		LocalDateTime now = LocalDateTime.of(2024, 6, 12, 9, 0);
+		for (int i = 0; i < 7; i++) {
+			quota.recordCall();
+		}
+
+		assertThrows(DataAccessException.class, () -> quota.sync(now));
+		assertEquals(0, jdbcTemplate.queryForObject("select count(*) from api_usage", Integer.class));
+
+		jdbcTemplate.execute("alter table api_usage drop constraint ck_no_month");
+		quota.sync(now);
+		assertEquals(7L, jdbcTemplate.queryForObject("select call_count from api_usage where period_key = 'day:2024-06-12'", Long.class));
+		assertEquals(7L, jdbcTemplate.queryForObject("select call_count from api_usage where period_key = 'month:2024-06'", Long.class));
+	}
+}
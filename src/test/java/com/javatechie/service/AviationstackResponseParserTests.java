@@ -0,0 +1,55 @@
+package com.javatechie.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.javatechie.model.FlightObservation;
+
+class AviationstackResponseParserTests {
+
+	private final AviationstackResponseParser parser = new AviationstackResponseParser();
+
+	@Test
+	void readsOnlyTheFieldsThePollerNeeds() throws Exception {
+		String json = """
+				{"pagination":{"limit":100,"offset":0,"count":2,"total":2},
+				 "data":[
+				  {"flight_date":"2024-07-30","flight_status":"active",
+				   "departure":{"airport":"San Francisco International","iata":"SFO","terminal":"2","gate":"D11",
+				                "delay":13,"scheduled":"2024-07-30T04:20:00+00:00","estimated":"2024-07-30T04:33:00-07:00",
+				                "actual":null},
+				   "arrival":{"iata":"DFW","gate":"A22"},
+				   "flight":{"number":"1004","iata":"AA1004","codeshared":{"airline_iata":"ba","flight_iata":"ba5678"}},
+				   "live":null},
+				  {"flight_status":"cancelled","departure":{"gate":null,"terminal":null,"delay":null,"scheduled":"bogus"},
+				   "flight":{"iata":"AA1005"}}
+				 ]}
+				""";
+
+		AviationstackResponseParser.Page page = parser.parse(json.getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(2, page.total());
+		assertEquals(2, page.data().size());
+		FlightObservation first = page.data().get(0);
+		assertEquals("active", first.flightStatus());
+		assertEquals("AA1004", first.flightIata());
+		assertEquals("SFO", first.departureIata());
+		assertEquals("2", first.terminal());
+		assertEquals("D11", first.gate());
+		assertEquals(13L, first.delay());
+		assertEquals(LocalDateTime.of(2024, 7, 30, 4, 20), first.scheduledTime());
+		assertEquals(LocalDateTime.of(2024, 7, 30, 4, 33), first.estimatedTime());
+
+		FlightObservation second = page.data().get(1);
+		assertEquals("cancelled", second.flightStatus());
+		assertNull(second.gate());
+		assertNull(second.terminal());
+		assertNull(second.delay());
+		assertNull(second.scheduledTime());
+	}
+}
@@ -0,0 +1,74 @@
+package com.javatechie.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTests {
+
+	@Test
+	void opensOnceFailureRateCrossesThreshold() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 4, 4, 0.5, 60000, 60000);
+		breaker.onSuccess();
+		breaker.onSuccess();
+		breaker.onFailure();
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+		breaker.onFailure();
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquire());
+	}
+
+	@Test
+	void halfOpenAllowsSingleTrialAndClosesOnSuccess() throws InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker("test", 2, 2, 0.5, 10, 100);
+		breaker.onFailure();
+		breaker.onFailure();
+		Thread.sleep(20);
+
+		assertTrue(breaker.tryAcquire());
+		assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquire());
+
+		breaker.onSuccess();
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		assertTrue(breaker.tryAcquire());
+	}
+
+	@Test
+	void failedTrialReopens() throws InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker("test", 2, 2, 0.5, 10, 100);
+		breaker.onFailure();
+		breaker.onFailure();
+		Thread.sleep(20);
+
+		assertTrue(breaker.tryAcquire());
+		breaker.onFailure();
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquire());
+	}
+
+	@Test
+	void unexpectedExceptionDuringTrialReleasesIt() throws InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker("test", 2, 2, 0.5, 10, 100);
+		breaker.onFailure();
+		breaker.onFailure();
+		Thread.sleep(20);
+
+		assertTrue(breaker.tryAcquire());
+		assertThrows(IllegalArgumentException.class, () -> breaker.record(() -> {
+			throw new IllegalArgumentException("Not enough variable values available to expand 'flight'");
+		}, e -> false));
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+		Thread.sleep(250);
+		assertTrue(breaker.tryAcquire());
+		assertThrows(IllegalStateException.class, () -> breaker.record(() -> {
+			throw new IllegalStateException("404 Not Found");
+		}, e -> true));
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+	}
+}
@@ -0,0 +1,84 @@
+package com.javatechie.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.javatechie.model.FlightEvent;
+
+class FlightEventRelayTests {
+
+	private JdbcTemplate jdbcTemplate;
+	private final List<String> published = new ArrayList<>();
+	private FlightEventRelay relay;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+				"jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+		jdbcTemplate.execute("create table flight_event_log (id bigint primary key, type varchar(255), flight_number varchar(255), "
+				+ "scheduled_time timestamp(6), estimated_time timestamp(6), gate varchar(255), terminal varchar(255), delay bigint, "
+				+ "version bigint, occurred_at timestamp(6))");
+		FlightEventBroker broker = new FlightEventBroker() {
+			@Override
+			public void publish(FlightEvent event) {
+				published.add(event.flightNumber() + "@" + event.version());
+			}
+
+			@Override
+			public int getConnectionCount() {
+				return 1;
+			}
+		};
+		relay = new FlightEventRelay();
+		ReflectionTestUtils.setField(relay, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(relay, "flightEventBroker", broker);
+		ReflectionTestUtils.setField(relay, "batchSize", 2);
+		ReflectionTestUtils.setField(relay, "gapMillis", 1000L);
+	}
+
+	@Test
+	void relaysNewEventsAndOnesCommittedOutOfOrder() {
+		insert(1, "AA1", 1);
+		relay.relay(0);
+		assertEquals(List.of(), published);
+
+		insert(2, "AA2", 1);
+		insert(4, "AA4", 1);
+		insert(5, "AA5", 1);
+		relay.relay(100);
+		assertEquals(List.of("AA2@1", "AA4@1", "AA5@1"), published);
+
+		insert(3, "AA3", 2);
+		relay.relay(200);
+		assertEquals(List.of("AA2@1", "AA4@1", "AA5@1", "AA3@2"), published);
+
+		relay.relay(300);
+		assertEquals(4, published.size());
+	}
+
+	@Test
+	void givesUpOnGapsAfterTheGracePeriod() {
+		relay.relay(0);
+		insert(2, "AA2", 1);
+		relay.relay(100);
+		relay.relay(1200);
+
+		insert(1, "AA1", 1);
+		relay.relay(1300);
+		assertEquals(List.of("AA2@1"), published);
+	}
+
+	private void insert(long id, String flightNumber, long version) {
+		jdbcTemplate.update("insert into flight_event_log (id, type, flight_number, delay, version, occurred_at) "
+				+ "values (?, 'change', ?, 15, ?, current_timestamp)", id, flightNumber, version);
+	}
+}
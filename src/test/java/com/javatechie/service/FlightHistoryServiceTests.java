@@ -0,0 +1,105 @@
+package com.javatechie.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Date;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.javatechie.model.Flight;
+
+class FlightHistoryServiceTests {
+
+	private final LocalDateTime now = LocalDateTime.of(2024, 7, 30, 8, 0);
+	private JdbcTemplate jdbcTemplate;
+	private FlightHistoryService history;
+
+	@BeforeEach
+	void setUp() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("create table flight_status_history (id bigint generated by default as identity primary key, flight_id bigint, "
+				+ "flight_number varchar(255), service_day date, observed_at timestamp(6), delay bigint, gate varchar(255), "
+				+ "terminal varchar(255), cancelled boolean not null)");
+		jdbcTemplate.execute("create table flight_daily_stats (id bigint generated by default as identity primary key, "
+				+ "flight_number varchar(255), service_day date, last_delay bigint not null, max_delay bigint not null, "
+				+ "status_changes integer not null, gate_changes integer not null, cancelled boolean not null, updated_at timestamp(6), "
+				+ "constraint uk_daily_stats_flight_day unique (flight_number, service_day))");
+		history = new FlightHistoryService();
+		ReflectionTestUtils.setField(history, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(history, "transactionTemplate", new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+	}
+
+	@Test
+	void firstSightingStartsTheDayAndChangesAccumulateOnIt() {
+		Flight flight = Flight.builder().id(1L).flightNumber("ai101").scheduledTime(now.plusHours(4)).delay(5L).gate("A1").build();
+		Flight seen = Flight.builder().delay(5L).gate("A1").build();
+
+		history.observe(flight, seen);
+		List<FlightHistoryService.StatusChange> observations = history.drainObservations();
+		history.write(observations, List.of(), now);
+		history.committed(observations, List.of());
+		history.observe(flight, seen);
+
+		List<FlightHistoryService.StatusChange> changes = List.of(
+				new FlightHistoryService.StatusChange(flight, 40L, "B7", null, true, false, false),
+				new FlightHistoryService.StatusChange(flight, 25L, "B7", null, false, false, false));
+		history.write(history.drainObservations(), changes, now.plusMinutes(5));
+
+		Map<String, Object> day = jdbcTemplate.queryForMap("select * from flight_daily_stats where flight_number = 'AI101'");
+		assertEquals(25L, day.get("LAST_DELAY"));
+		assertEquals(40L, day.get("MAX_DELAY"));
+		assertEquals(2, day.get("STATUS_CHANGES"));
+		assertEquals(1, day.get("GATE_CHANGES"));
+		assertEquals(2, jdbcTemplate.queryForObject("select count(*) from flight_status_history", Integer.class));
+	}
+
+	@Test
+	void sightingsOfAnotherDaysDepartureAreIgnored() {
+		Flight flight = Flight.builder().id(1L).flightNumber("AI101").scheduledTime(now.plusHours(4)).delay(0L).gate("A1").build();
+		history.observe(flight, Flight.builder().scheduledTime(now.plusHours(4).minusDays(1)).delay(90L).gate("C2").build());
+		assertFalse(history.hasPending());
+
+		history.observe(flight, Flight.builder().scheduledTime(now.plusHours(4)).delay(0L).gate("A1").build());
+		history.flush(now);
+
+		Map<String, Object> day = jdbcTemplate.queryForMap("select * from flight_daily_stats where flight_number = 'AI101'");
+		assertEquals(0L, day.get("LAST_DELAY"));
+		assertEquals(Date.valueOf(now.toLocalDate()), day.get("SERVICE_DAY"));
+	}
+
+	@Test
+	void failedFlushIsRolledBackAndRetried() {
+		Flight flight = Flight.builder().id(1L).flightNumber("AI101").scheduledTime(now.plusHours(4)).delay(0L).gate("A1").build();
+		history.observe(flight, Flight.builder().delay(0L).gate("A1").build());
+		history.recordChanges(List.of(new FlightHistoryService.StatusChange(flight, 40L, "B7", null, true, false, false)));
+		jdbcTemplate.execute("alter table flight_status_history rename to flight_status_history_offline");
+
+		assertEquals(0, history.flush(now));
+		assertTrue(history.hasPending());
+		assertEquals(0, jdbcTemplate.queryForObject("select count(*) from flight_daily_stats", Integer.class));
+
+		jdbcTemplate.execute("alter table flight_status_history_offline rename to flight_status_history");
+		history.recordChanges(List.of(new FlightHistoryService.StatusChange(flight, 20L, "B7", null, false, false, false)));
+		history.flush(now.plusMinutes(1));
+
+		assertFalse(history.hasPending());
+		Map<String, Object> day = jdbcTemplate.queryForMap("select * from flight_daily_stats where flight_number = 'AI101'");
+		assertEquals(20L, day.get("LAST_DELAY"));
+		assertEquals(40L, day.get("MAX_DELAY"));
+		assertEquals(2, day.get("STATUS_CHANGES"));
+	}
+}
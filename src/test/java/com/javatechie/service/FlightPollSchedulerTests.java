@@ -0,0 +1,152 @@
+package com.javatechie.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.javatechie.model.Flight;
+import com.javatechie.model.PollCheckpoint;
+
+class FlightPollSchedulerTests {
+
+	private final LocalDateTime now = LocalDateTime.of(2024, 7, 30, 8, 0);
+	private FlightPollScheduler scheduler;
+
+	@BeforeEach
+	void setUp() {
+		scheduler = new FlightPollScheduler();
+		ReflectionTestUtils.setField(scheduler, "minIntervalSeconds", 60L);
+		ReflectionTestUtils.setField(scheduler, "maxIntervalSeconds", 3600L);
+		ReflectionTestUtils.setField(scheduler, "proximityDivisor", 12L);
+		ReflectionTestUtils.setField(scheduler, "maxBackoffSteps", 3);
+		ReflectionTestUtils.setField(scheduler, "warmupJitter", true);
+	}
+
+	@Test
+	void nearFlightsArePolledMoreOftenThanDistantOnes() {
+		scheduler.track(flight(1L, now.plusMinutes(30)), now);
+		scheduler.track(flight(2L, now.plusHours(10)), now);
+		assertEquals(List.of(1L, 2L), scheduler.takeDue(now).stream().sorted().toList());
+
+		scheduler.reschedule(1L, PollOutcome.UNCHANGED, now);
+		scheduler.reschedule(2L, PollOutcome.UNCHANGED, now);
+
+		assertEquals(List.of(1L), scheduler.takeDue(now.plusMinutes(5)));
+		assertTrue(scheduler.takeDue(now.plusMinutes(30)).isEmpty());
+	}
+
+	@Test
+	void unchangedPollsBackOffAndChangesReset() {
+		scheduler.track(flight(1L, now.plusHours(6)), now);
+		scheduler.takeDue(now);
+
+		scheduler.reschedule(1L, PollOutcome.CHANGED, now);
+		assertEquals(List.of(1L), scheduler.takeDue(now.plusMinutes(30)));
+
+		scheduler.reschedule(1L, PollOutcome.UNCHANGED, now);
+		assertTrue(scheduler.takeDue(now.plusMinutes(30)).isEmpty());
+		assertEquals(List.of(1L), scheduler.takeDue(now.plusMinutes(60)));
+	}
+
+	@Test
+	void cancelledAndDepartedFlightsAreDropped() {
+		scheduler.track(flight(1L, now.plusHours(2)), now);
+		scheduler.track(flight(2L, now.plusMinutes(2)), now);
+		scheduler.takeDue(now);
+
+		scheduler.reschedule(1L, PollOutcome.CANCELLED, now);
+		scheduler.reschedule(2L, PollOutcome.UNCHANGED, now);
+
+		assertTrue(scheduler.takeDue(now.plusMinutes(5)).isEmpty());
+		assertEquals(0, scheduler.size());
+	}
+
+	@Test
+	void prioritizesNearPopularAndVolatileFlights() {
+		scheduler.track(flight(1L, now.plusHours(8)), now, 0);
+		scheduler.track(flight(2L, now.plusHours(8)), now, 40);
+		scheduler.track(flight(3L, now.plusMinutes(45)), now, 0);
+		scheduler.track(flight(4L, now.plusHours(8)), now, 0);
+		scheduler.takeDue(now);
+		scheduler.reschedule(4L, PollOutcome.CHANGED, now);
+
+		assertEquals(List.of(3L, 2L, 4L, 1L), scheduler.prioritize(List.of(1L, 2L, 3L, 4L), now));
+
+		scheduler.defer(List.of(1L, 2L));
+		assertEquals(List.of(1L, 2L), scheduler.takeDue(now).stream().sorted().toList());
+	}
+
+	@Test
+	void flightsTakenByAFailedCycleComeBackOnTheNextCycle() {
+		scheduler.track(flight(1L, now.plusHours(6)), now);
+		scheduler.track(flight(2L, now.plusHours(6)), now);
+
+		List<Long> taken = scheduler.takeDue(now);
+		assertThrows(IllegalStateException.class, () -> {
+			try {
+				scheduler.reschedule(1L, PollOutcome.UNCHANGED, now);
+				throw new IllegalStateException("database unavailable");
+			} finally {
+				scheduler.defer(taken);
+			}
+		});
+
+		assertEquals(List.of(2L), scheduler.takeDue(now.plusSeconds(30)));
+		scheduler.track(flight(2L, now.plusHours(6)), now.plusSeconds(30));
+		scheduler.track(flight(2L, now.plusHours(6)), now.plusSeconds(30));
+		assertEquals(List.of(2L), scheduler.takeDue(now.plusSeconds(60)));
+		scheduler.reschedule(2L, PollOutcome.UNCHANGED, now.plusSeconds(60));
+		assertTrue(scheduler.takeDue(now.plusMinutes(20)).isEmpty());
+		assertEquals(List.of(1L, 2L), scheduler.takeDue(now.plusHours(2)).stream().sorted().toList());
+	}
+
+	@Test
+	void resumesFromCheckpointsAndSpreadsFirstPolls() {
+		scheduler.track(flight(1L, now.plusHours(6)), now);
+		scheduler.takeDue(now);
+		scheduler.reschedule(1L, PollOutcome.UNCHANGED, now);
+		List<PollCheckpoint> checkpoints = scheduler.takeCheckpoints();
+		assertEquals(1, checkpoints.size());
+		assertEquals(1, checkpoints.get(0).getUnchangedCount());
+		assertTrue(scheduler.takeCheckpoints().isEmpty());
+
+		FlightPollScheduler restarted = new FlightPollScheduler();
+		ReflectionTestUtils.setField(restarted, "minIntervalSeconds", 60L);
+		ReflectionTestUtils.setField(restarted, "maxIntervalSeconds", 3600L);
+		ReflectionTestUtils.setField(restarted, "proximityDivisor", 12L);
+		ReflectionTestUtils.setField(restarted, "maxBackoffSteps", 3);
+		ReflectionTestUtils.setField(restarted, "warmupJitter", true);
+		LocalDateTime later = now.plusMinutes(10);
+		restarted.resume(flight(1L, now.plusHours(6)), later, 0, checkpoints.get(0));
+		for (long id = 2; id <= 100; id++) {
+			restarted.resume(flight(id, now.plusHours(6)), later, 0, null);
+		}
+
+		List<Long> due = restarted.takeDue(later.plusMinutes(15));
+		assertTrue(due.size() > 1 && due.size() < 99);
+		assertFalse(due.contains(1L));
+		assertTrue(restarted.takeDue(now.plusMinutes(60)).contains(1L));
+	}
+
+	@Test
+	void resumedFlightsAreDueAtOnceWithoutJitter() {
+		ReflectionTestUtils.setField(scheduler, "warmupJitter", false);
+		for (long id = 1; id <= 100; id++) {
+			scheduler.resume(flight(id, now.plusHours(6)), now, 0, null);
+		}
+
+		assertEquals(100, scheduler.takeDue(now).size());
+	}
+
+	private Flight flight(Long id, LocalDateTime scheduledTime) {
+		return Flight.builder().id(id).flightNumber("AA" + id).scheduledTime(scheduledTime).build();
+	}
+}
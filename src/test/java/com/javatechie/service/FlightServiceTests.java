@@ -0,0 +1,217 @@
+package com.javatechie.service;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.ExpectedCount.never;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import com.javatechie.model.Flight;
+import com.javatechie.repository.FlightRepository;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:flight-service;NON_KEYWORDS=USER",
+		"flight.APIKEY=test-key",
+		"flight.polling.tickMillis=3600000",
+		"flight.polling.discoveryMillis=0",
+		"flight.notification.dispatchMillis=3600000",
+		"flight.bulk.minGroupSize=3",
+		"flight.upstream.requestsPerSecond=1000"})
+@ActiveProfiles("h2")
+class FlightServiceTests {
+
+	@TestConfiguration
+	static class HistoryConfig {
+		@Bean
+		@Primary
+		FlightHistoryService failingHistoryService() {
+			return new FailingHistoryService();
+		}
+	}
+
+	/**
+	 * Fails to record sightings of flight EK1, so its unchanged responses fail to process.
+	 */
+	static class FailingHistoryService extends FlightHistoryService {
+		@Override
+		public void observe(Flight flight, Flight currentData) {
+			if ("EK1".equals(flight.getFlightNumber())) {
+				throw new IllegalStateException("history unavailable");
+			}
+			super.observe(flight, currentData);
+		}
+	}
+
+	private final LocalDateTime departure = LocalDateTime.now().plusHours(2).withSecond(0).withNano(0);
+
+	@Autowired
+	private FlightService flightService;
+	@Autowired
+	private FlightRepository flightRepository;
+	@Autowired
+	private RestTemplate upstreamRestTemplate;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private ApiQuotaManager apiQuotaManager;
+	@Autowired
+	private FlightPollScheduler pollScheduler;
+	@Autowired
+	private FlightSnapshotStore snapshotStore;
+
+	@Test
+	void groupsFlightsByAirportAndFallsBackToSingleLookups() throws InterruptedException {
+		awaitWarmUp();
+		for (String flightNumber : List.of("AA1", "AA2", "AA3", "AA4")) {
+			save(flightNumber, "JFK", departure);
+		}
+		save("BA9", null, departure);
+		MockRestServiceServer upstream = MockRestServiceServer.bindTo(upstreamRestTemplate).ignoreExpectOrder(true).build();
+		upstream.expect(once(), requestTo(containsString("dep_iata=JFK&limit=100&offset=0")))
+				.andRespond(withSuccess(page(3, item("AA1", "JFK", "B7"), item("AA2", "JFK", "A1"), item("AA3", "JFK", "A1")),
+						MediaType.APPLICATION_JSON));
+		upstream.expect(once(), requestTo(containsString("flight_iata=AA4")))
+				.andRespond(withSuccess(page(1, item("AA4", "JFK", "C3")), MediaType.APPLICATION_JSON));
+		upstream.expect(once(), requestTo(containsString("flight_iata=BA9")))
+				.andRespond(withSuccess(page(1, item("BA9", "LHR", "A1")), MediaType.APPLICATION_JSON));
+
+		flightService.checkFlightStatusPriority();
+
+		upstream.verify();
+		assertEquals("B7", gate("AA1"));
+		assertEquals("A1", gate("AA2"));
+		assertEquals("C3", gate("AA4"));
+		assertEquals("LHR", jdbcTemplate.queryForObject("select departure_airport from flight where flight_number = 'BA9'", String.class));
+	}
+
+	@Test
+	void boardItemsOnlyCoverFlightsScheduledTheSameDay() throws InterruptedException {
+		awaitWarmUp();
+		for (String flightNumber : List.of("LH1", "LH2", "LH3")) {
+			save(flightNumber, "FRA", departure);
+		}
+		MockRestServiceServer upstream = MockRestServiceServer.bindTo(upstreamRestTemplate).ignoreExpectOrder(true).build();
+		upstream.expect(once(), requestTo(containsString("dep_iata=FRA&limit=100&offset=0")))
+				.andRespond(withSuccess(page(4, item("LH3", "FRA", "Z9", departure.minusDays(1)), item("LH1", "FRA", "B7"),
+						item("LH2", "FRA", "B8"), item("LH3", "FRA", "Z8", departure.plusDays(1))), MediaType.APPLICATION_JSON));
+		upstream.expect(once(), requestTo(containsString("flight_iata=LH3")))
+				.andRespond(withSuccess(page(1, item("LH3", "FRA", "C3")), MediaType.APPLICATION_JSON));
+
+		flightService.checkFlightStatusPriority();
+
+		upstream.verify();
+		assertEquals("B7", gate("LH1"));
+		assertEquals("C3", gate("LH3"));
+	}
+
+	@Test
+	void budgetsOneCallForAWholeDepartureBoard() throws InterruptedException {
+		awaitWarmUp();
+		for (String flightNumber : List.of("UA1", "UA2", "UA3")) {
+			save(flightNumber, "ORD", departure);
+		}
+		Flight later = save("DL9", null, departure.plusHours(3));
+		MockRestServiceServer upstream = MockRestServiceServer.bindTo(upstreamRestTemplate).ignoreExpectOrder(true).build();
+		upstream.expect(once(), requestTo(containsString("dep_iata=ORD&limit=100&offset=0")))
+				.andRespond(withSuccess(page(3, item("UA1", "ORD", "B7"), item("UA2", "ORD", "B8"), item("UA3", "ORD", "B9")),
+						MediaType.APPLICATION_JSON));
+		upstream.expect(never(), requestTo(containsString("flight_iata=DL9")));
+		Object reserve = ReflectionTestUtils.getField(apiQuotaManager, "interactiveReserve");
+		ReflectionTestUtils.setField(apiQuotaManager, "interactiveReserve", 0.0);
+		ReflectionTestUtils.setField(apiQuotaManager, "dailyCalls", apiQuotaManager.getUsedToday() + 1);
+		try {
+			flightService.checkFlightStatusPriority();
+		} finally {
+			ReflectionTestUtils.setField(apiQuotaManager, "dailyCalls", 0L);
+			ReflectionTestUtils.setField(apiQuotaManager, "interactiveReserve", reserve);
+			flightRepository.delete(later); // Still due, so it would be polled by the other test
+			pollScheduler.remove(List.of(later.getId()));
+		}
+
+		upstream.verify();
+		assertEquals("B7", gate("UA1"));
+		assertEquals("B9", gate("UA3"));
+		assertEquals(1, apiQuotaManager.getLastDeferred());
+	}
+
+	@Test
+	void responseWithAFailedItemIsNotFingerprinted() throws InterruptedException {
+		awaitWarmUp();
+		Flight failing = save("EK1", null, departure);
+		Flight healthy = save("EK2", null, departure);
+		String failingBody = page(1, item("EK1", "DXB", "A1"));
+		String healthyBody = page(1, item("EK2", "DXB", "A1"));
+		MockRestServiceServer upstream = MockRestServiceServer.bindTo(upstreamRestTemplate).ignoreExpectOrder(true).build();
+		upstream.expect(once(), requestTo(containsString("flight_iata=EK1"))).andRespond(withSuccess(failingBody, MediaType.APPLICATION_JSON));
+		upstream.expect(once(), requestTo(containsString("flight_iata=EK2"))).andRespond(withSuccess(healthyBody, MediaType.APPLICATION_JSON));
+		try {
+			flightService.checkFlightStatusPriority();
+		} finally {
+			flightRepository.deleteAllById(List.of(failing.getId(), healthy.getId())); // Keeps them out of the other tests' cycles
+			pollScheduler.remove(List.of(failing.getId(), healthy.getId()));
+		}
+
+		upstream.verify();
+		assertFalse(snapshotStore.isSameResponse(failing.getId(), FlightSnapshotStore.fingerprint(failingBody.getBytes(StandardCharsets.UTF_8))));
+		assertTrue(snapshotStore.isSameResponse(healthy.getId(), FlightSnapshotStore.fingerprint(healthyBody.getBytes(StandardCharsets.UTF_8))));
+	}
+
+	private void awaitWarmUp() throws InterruptedException {
+		for (int i = 0; i < 100 && !flightService.isWarmedUp(); i++) {
+			Thread.sleep(100); // Flights found by the warm-up get spread out instead of being due now
+		}
+		assertTrue(flightService.isWarmedUp());
+	}
+
+	private Flight save(String flightNumber, String departureAirport, LocalDateTime departure) {
+		return flightRepository.saveAndFlush(Flight.builder()
+				.flightNumber(flightNumber)
+				.scheduledTime(departure)
+				.estimatedTime(departure.plusMinutes(5))
+				.gate("A1")
+				.terminal("1")
+				.delay(5L)
+				.departureAirport(departureAirport)
+				.build());
+	}
+
+	private String gate(String flightNumber) {
+		return jdbcTemplate.queryForObject("select gate from flight where flight_number = ?", String.class, flightNumber);
+	}
+
+	private String page(int total, String... items) {
+		return "{\"pagination\":{\"limit\":100,\"offset\":0,\"count\":" + items.length + ",\"total\":" + total + "},\"data\":["
+				+ List.of(items).stream().collect(Collectors.joining(",")) + "]}";
+	}
+
+	private String item(String flightIata, String departureIata, String gate) {
+		return item(flightIata, departureIata, gate, departure);
+	}
+
+	private String item(String flightIata, String departureIata, String gate, LocalDateTime departure) {
+		return "{\"flight_status\":\"scheduled\",\"departure\":{\"iata\":\"" + departureIata + "\",\"terminal\":\"1\",\"gate\":\"" + gate
+				+ "\",\"delay\":5,\"scheduled\":\"" + departure + ":00+00:00\",\"estimated\":\"" + departure.plusMinutes(5) + ":00+00:00\"},"
+				+ "\"flight\":{\"iata\":\"" + flightIata + "\"}}";
+	}
+}
@@ -0,0 +1,72 @@
+package com.javatechie.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.javatechie.model.Flight;
+
+class FlightSnapshotStoreTests {
+
+	private final LocalDateTime departure = LocalDateTime.of(2024, 7, 30, 14, 5);
+
+	@Test
+	void storesFlightStateAcrossResizesAndRemovals() {
+		FlightSnapshotStore store = new FlightSnapshotStore();
+		for (long id = 1; id <= 5000; id++) {
+			store.put(flight(id, "AI" + id, "B" + (id % 40)));
+		}
+		store.put(flight(7L, "AI7", "Concourse B Gate 12"));
+		Set<Long> kept = new HashSet<>();
+		for (long id = 1; id <= 5000; id += 2) {
+			kept.add(id);
+		}
+		store.retainOnly(kept);
+
+		assertEquals(2500, store.size());
+		assertNull(store.view(8L));
+		Flight view = store.view(4999L);
+		assertEquals("AI4999", view.getFlightNumber());
+		assertEquals("B39", view.getGate());
+		assertEquals(departure, view.getScheduledTime());
+		assertEquals(15L, view.getDelay());
+		assertEquals(3L, view.getVersion());
+		assertEquals("Concourse B Gate 12", store.view(7L).getGate());
+	}
+
+	@Test
+	void responseFingerprintIsForgottenWhenStateChanges() {
+		FlightSnapshotStore store = new FlightSnapshotStore();
+		long fingerprint = FlightSnapshotStore.fingerprint("{\"data\":[]}".getBytes(StandardCharsets.UTF_8));
+		store.put(flight(1L, "AI101", "B12"));
+		store.recordResponse(1L, fingerprint);
+
+		store.put(flight(1L, "AI101", "B12"));
+		assertTrue(store.isSameResponse(1L, fingerprint));
+
+		store.put(flight(1L, "AI101", "C4"));
+		assertFalse(store.isSameResponse(1L, fingerprint));
+	}
+
+	private Flight flight(long id, String flightNumber, String gate) {
+		return Flight.builder()
+				.id(id)
+				.flightNumber(flightNumber)
+				.scheduledTime(departure)
+				.estimatedTime(departure.plusMinutes(15))
+				.delay(15L)
+				.gate(gate)
+				.terminal("2")
+				.departureAirport("DEL")
+				.version(3L)
+				.build();
+	}
+}
@@ -0,0 +1,111 @@
+package com.javatechie.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.javatechie.model.Flight;
+import com.javatechie.repository.FlightRepository;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:state-writer;NON_KEYWORDS=USER",
+		"flight.polling.tickMillis=3600000",
+		"flight.notification.dispatchMillis=3600000"})
+@ActiveProfiles("h2")
+class FlightStateWriterTests {
+
+	private final LocalDateTime departure = LocalDateTime.now().plusHours(3).withSecond(0).withNano(0);
+
+	@Autowired
+	private FlightStateWriter flightStateWriter;
+	@Autowired
+	private FlightRepository flightRepository;
+	@Autowired
+	private FlightSnapshotStore snapshotStore;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void appliesGroupedUpdatesAndSkipsFlightsModifiedConcurrently() {
+		Flight gateAndDelay = save("SW101");
+		Flight gateOnly = save("SW102");
+		Flight stale = save("SW103");
+		jdbcTemplate.update("update flight set gate = 'Z9', version = version + 1 where id = ?", stale.getId());
+		snapshotStore.put(stale);
+
+		flightStateWriter.stageChange(gateAndDelay, observed(gateAndDelay, "B2", 45L));
+		flightStateWriter.stageChange(gateOnly, observed(gateOnly, "B3", 10L));
+		flightStateWriter.stageChange(stale, observed(stale, "B4", 10L));
+		FlightStateWriter.FlushResult result = flightStateWriter.flush();
+
+		assertEquals(3, result.staged());
+		assertEquals(2, result.applied());
+		assertEquals(1, result.conflicts());
+		assertRow(gateAndDelay, "B2", 45L, 1L);
+		assertRow(gateOnly, "B3", 10L, 1L);
+		assertRow(stale, "Z9", 10L, 1L);
+
+		assertEquals(List.of(gateAndDelay.getId(), gateOnly.getId()), jdbcTemplate.queryForList(
+				"select flight_id from notification_outbox where kind = 'CHANGE' and flight_id in (?, ?, ?) order by flight_id",
+				Long.class, gateAndDelay.getId(), gateOnly.getId(), stale.getId()));
+		assertEquals(List.of("SW101", "SW102"), jdbcTemplate.queryForList(
+				"select flight_number from flight_event_log where flight_number like 'SW10%' order by flight_number", String.class));
+
+		assertEquals("B2", snapshotStore.view(gateAndDelay.getId()).getGate());
+		assertEquals(1L, snapshotStore.view(gateOnly.getId()).getVersion());
+		assertNull(snapshotStore.view(stale.getId()));
+	}
+
+	@Test
+	void cancellationIsNotifiedOnce() {
+		Flight flight = save("SW201");
+
+		flightStateWriter.stageCancellation(flight);
+		flightStateWriter.flush();
+		flightStateWriter.stageCancellation(flight);
+		FlightStateWriter.FlushResult retry = flightStateWriter.flush();
+
+		assertEquals(1, retry.conflicts());
+		assertEquals("cancelled", jdbcTemplate.queryForObject("select flight_status from flight where id = ?", String.class, flight.getId()));
+		assertEquals(1, jdbcTemplate.queryForObject("select count(*) from notification_outbox where kind = 'CANCELLATION' and flight_id = ?",
+				Integer.class, flight.getId()));
+	}
+
+	private Flight save(String flightNumber) {
+		return flightRepository.saveAndFlush(Flight.builder()
+				.flightNumber(flightNumber)
+				.scheduledTime(departure)
+				.estimatedTime(departure)
+				.gate("A1")
+				.terminal("1")
+				.delay(10L)
+				.build());
+	}
+
+	private Flight observed(Flight flight, String gate, long delay) {
+		return Flight.builder()
+				.flightNumber(flight.getFlightNumber())
+				.scheduledTime(flight.getScheduledTime())
+				.estimatedTime(flight.getEstimatedTime())
+				.gate(gate)
+				.terminal(flight.getTerminal())
+				.delay(delay)
+				.build();
+	}
+
+	private void assertRow(Flight flight, String gate, long delay, long version) {
+		Map<String, Object> row = jdbcTemplate.queryForMap("select gate, delay, version from flight where id = ?", flight.getId());
+		assertEquals(gate, row.get("GATE"));
+		assertEquals(delay, row.get("DELAY"));
+		assertEquals(version, row.get("VERSION"));
+	}
+}
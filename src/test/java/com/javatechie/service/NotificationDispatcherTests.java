@@ -0,0 +1,170 @@
+package com.javatechie.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.javatechie.model.NotificationKind;
+import com.javatechie.model.NotificationOutbox;
+import com.javatechie.model.OutboxStatus;
+import com.javatechie.repository.NotificationOutboxRepository;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:dispatcher;NON_KEYWORDS=USER",
+		"flight.polling.tickMillis=3600000",
+		"flight.notification.dispatchMillis=3600000",
+		"flight.notification.maxAttempts=2",
+		"flight.notification.backoffSeconds=60",
+		"flight.notification.maxRecipientsPerMessage=2",
+		"flight.notification.claimTimeoutSeconds=600"})
+@ActiveProfiles("h2")
+class NotificationDispatcherTests {
+
+	@TestConfiguration
+	static class MailConfig {
+		@Bean
+		JavaMailSender mailSender() {
+			return new RecordingMailSender();
+		}
+	}
+
+	/**
+	 * Accepts every message except those addressed to a "fail@" recipient, and breaks down on
+	 * a "crash@" recipient.
+	 */
+	static class RecordingMailSender extends JavaMailSenderImpl {
+		private final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+
+		@Override
+		public void send(MimeMessage... mimeMessages) {
+			Map<Object, Exception> failed = new LinkedHashMap<>();
+			for (MimeMessage message : mimeMessages) {
+				try {
+					List<String> recipients = new ArrayList<>();
+					for (Address address : message.getAllRecipients()) {
+						recipients.add(address.toString());
+					}
+					if (recipients.stream().anyMatch(recipient -> recipient.startsWith("crash@"))) {
+						throw new IllegalStateException("connection pool closed");
+					}
+					if (recipients.stream().anyMatch(recipient -> recipient.startsWith("fail@"))) {
+						failed.put(message, new MessagingException("550 mailbox unavailable"));
+					} else {
+						delivered.addAll(recipients);
+					}
+				} catch (MessagingException e) {
+					failed.put(message, e);
+				}
+			}
+			if (!failed.isEmpty()) {
+				throw new MailSendException(failed);
+			}
+		}
+	}
+
+	@Autowired
+	private NotificationDispatcher notificationDispatcher;
+	@Autowired
+	private NotificationOutboxRepository notificationOutboxRepository;
+	@Autowired
+	private JavaMailSender mailSender;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		notificationOutboxRepository.deleteAll();
+		((RecordingMailSender) mailSender).delivered.clear();
+	}
+
+	@Test
+	void retriesFailedRecipientsWithBackoffAndDeadLettersThem() {
+		NotificationOutbox entry = save("a@example.com,fail@example.com,b@example.com", OutboxStatus.PENDING, null);
+
+		LocalDateTime before = LocalDateTime.now();
+		notificationDispatcher.dispatch();
+
+		NotificationOutbox retried = notificationOutboxRepository.findById(entry.getId()).orElseThrow();
+		assertEquals(OutboxStatus.PENDING, retried.getStatus());
+		assertEquals(1, retried.getAttempts());
+		assertEquals("a@example.com,fail@example.com", retried.getRecipients());
+		assertEquals("550 mailbox unavailable", retried.getLastError());
+		assertFalse(retried.getNextAttemptAt().isBefore(before.plusSeconds(60)));
+		assertEquals(List.of("b@example.com"), ((RecordingMailSender) mailSender).delivered);
+
+		notificationDispatcher.dispatch();
+		assertEquals(1, notificationOutboxRepository.findById(entry.getId()).orElseThrow().getAttempts());
+
+		jdbcTemplate.update("update notification_outbox set next_attempt_at = ? where id = ?", LocalDateTime.now().minusSeconds(1), entry.getId());
+		notificationDispatcher.dispatch();
+
+		NotificationOutbox dead = notificationOutboxRepository.findById(entry.getId()).orElseThrow();
+		assertEquals(OutboxStatus.DEAD, dead.getStatus());
+		assertEquals(2, dead.getAttempts());
+	}
+
+	@Test
+	void retriesEveryEmailOfABatchThatThrew() {
+		NotificationOutbox entry = save("crash@example.com,e@example.com", OutboxStatus.PENDING, null);
+
+		notificationDispatcher.dispatch();
+
+		NotificationOutbox retried = notificationOutboxRepository.findById(entry.getId()).orElseThrow();
+		assertEquals(OutboxStatus.PENDING, retried.getStatus());
+		assertEquals(1, retried.getAttempts());
+		assertEquals("crash@example.com,e@example.com", retried.getRecipients());
+		assertEquals("connection pool closed", retried.getLastError());
+		assertNull(retried.getSentAt());
+	}
+
+	@Test
+	void releasesClaimsAbandonedPastTheTimeout() {
+		NotificationOutbox abandoned = save("c@example.com", OutboxStatus.SENDING, LocalDateTime.now().minusMinutes(11));
+		NotificationOutbox inFlight = save("d@example.com", OutboxStatus.SENDING, LocalDateTime.now().minusMinutes(1));
+
+		notificationDispatcher.dispatch();
+
+		assertEquals(OutboxStatus.SENT, notificationOutboxRepository.findById(abandoned.getId()).orElseThrow().getStatus());
+		assertEquals(OutboxStatus.SENDING, notificationOutboxRepository.findById(inFlight.getId()).orElseThrow().getStatus());
+		assertEquals(List.of("c@example.com"), ((RecordingMailSender) mailSender).delivered);
+	}
+
+	private NotificationOutbox save(String recipients, OutboxStatus status, LocalDateTime claimedAt) {
+		LocalDateTime now = LocalDateTime.now();
+		return notificationOutboxRepository.save(NotificationOutbox.builder()
+				.kind(NotificationKind.CONFIRMATION)
+				.recipients(recipients)
+				.subject("Subscription Confirmation for Flight AI101")
+				.body("Subscription confirmation for flight: AI101.")
+				.digestCount(1)
+				.status(status)
+				.createdAt(now)
+				.nextAttemptAt(now.minusSeconds(1))
+				.claimToken(claimedAt == null ? null : "crashed-instance")
+				.claimedAt(claimedAt)
+				.build());
+	}
+}
@@ -0,0 +1,57 @@
+package com.javatechie.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.javatechie.model.Flight;
+
+class NotificationTemplatesTests {
+
+	private final NotificationTemplates templates = new NotificationTemplates();
+
+	@Test
+	void changeMessageMatchesTheOriginalWording() {
+		Flight flight = Flight.builder().flightNumber("AA1004").build();
+		Flight currentData = Flight.builder()
+				.scheduledTime(LocalDateTime.of(2024, 7, 30, 4, 20))
+				.estimatedTime(LocalDateTime.of(2024, 7, 30, 4, 45))
+				.gate("D11")
+				.terminal("2")
+				.build();
+
+		String expected = String.format("We regret to inform you that your flight boarding details have changed.\n\n" +
+						"Flight Number: %s\n" +
+						"Scheduled Time: %s\n" +
+						"Estimated Time: %s\n" +
+						"Gate No: %s\n" +
+						"Terminal: %s\n\n" +
+						"We apologize for any inconvenience this may cause. Please contact our support team for further information.",
+				flight.getFlightNumber(),
+				currentData.getScheduledTime(),
+				currentData.getEstimatedTime(),
+				currentData.getGate(),
+				currentData.getTerminal());
+
+		assertEquals(expected, templates.change(flight, currentData));
+		assertEquals("Notification: Flight Details for AA1004", templates.changeSubject(flight));
+	}
+
+	@Test
+	void digestListsEveryMergedChange() {
+		Flight flight = Flight.builder().flightNumber("AA1004").build();
+		Flight first = Flight.builder().gate("D11").terminal("2").estimatedTime(LocalDateTime.of(2024, 7, 30, 4, 45)).build();
+		Flight second = Flight.builder().gate("D14").terminal("2").estimatedTime(LocalDateTime.of(2024, 7, 30, 5, 10)).build();
+
+		String changeLog = templates.changeLogLine(first) + templates.changeLogLine(second);
+		String digest = templates.digest(flight, second, 2, changeLog);
+
+		assertTrue(digest.contains("changed 2 times"));
+		assertTrue(digest.contains("- Estimated Time: 2024-07-30T04:45, Gate No: D11, Terminal: 2\n"
+				+ "- Estimated Time: 2024-07-30T05:10, Gate No: D14, Terminal: 2\n"));
+		assertTrue(digest.contains("Gate No: D14\n"));
+	}
+}
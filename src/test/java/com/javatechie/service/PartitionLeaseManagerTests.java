@@ -0,0 +1,81 @@
+package com.javatechie.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class PartitionLeaseManagerTests {
+
+	private final LocalDateTime now = LocalDateTime.now();
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+				"jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+		jdbcTemplate.execute("create table partition_lease (partition_id integer primary key, owner_id varchar(255), lease_until timestamp(6))");
+		jdbcTemplate.execute("create table polling_instance (instance_id varchar(255) primary key, heartbeat_at timestamp(6))");
+	}
+
+	@Test
+	void instancesSplitPartitionsAndTakeOverFromDeadOnes() {
+		PartitionLeaseManager first = manager("first");
+		PartitionLeaseManager second = manager("second");
+
+		first.rebalance(now);
+		second.rebalance(now);
+		assertEquals(8, first.getOwnedPartitions().size());
+		assertTrue(second.getOwnedPartitions().isEmpty());
+
+		first.rebalance(now.plusSeconds(10));
+		second.rebalance(now.plusSeconds(10));
+		assertEquals(4, first.getOwnedPartitions().size());
+		assertEquals(4, second.getOwnedPartitions().size());
+		Set<Integer> all = new HashSet<>(first.getOwnedPartitions());
+		all.addAll(second.getOwnedPartitions());
+		assertEquals(8, all.size());
+
+		second.rebalance(now.plusSeconds(50));
+		assertEquals(8, second.getOwnedPartitions().size());
+	}
+
+	@Test
+	void stopsOwningPartitionsOnceUnrenewedLeasesExpire() {
+		PartitionLeaseManager manager = manager("first");
+		manager.rebalance(now);
+		long generation = manager.getGeneration();
+		assertTrue(manager.owns(1L));
+
+		manager.expireLeases(now.plusSeconds(20));
+		assertTrue(manager.owns(1L));
+
+		manager.expireLeases(now.plusSeconds(30));
+		assertFalse(manager.owns(1L));
+		assertTrue(manager.getOwnedPartitions().isEmpty());
+		assertEquals(generation + 1, manager.getGeneration());
+
+		manager.rebalance(now.plusSeconds(35));
+		assertTrue(manager.owns(1L));
+		assertEquals(generation + 2, manager.getGeneration());
+	}
+
+	private PartitionLeaseManager manager(String instanceId) {
+		PartitionLeaseManager manager = new PartitionLeaseManager();
+		ReflectionTestUtils.setField(manager, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(manager, "partitions", 8);
+		ReflectionTestUtils.setField(manager, "leaseSeconds", 30L);
+		ReflectionTestUtils.setField(manager, "instanceId", instanceId);
+		return manager;
+	}
+}